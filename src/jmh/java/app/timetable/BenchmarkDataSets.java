@@ -0,0 +1,27 @@
+package app.timetable;
+
+import java.io.IOException;
+import java.util.Random;
+
+import app.timetable.model.DataSet;
+
+/**
+ * Datasets of the benchmarks.
+ * The 160 and 200 classes datasets are the bundled ones, larger ones are generated with a fixed seed
+ */
+public class BenchmarkDataSets {
+
+    /**
+     * Load or generate a dataset
+     * @param nClass: number of classes, a multiple of 4
+     * @param hard: true for hard constraint, false for soft constraint
+     * @return: the dataset
+     * @throws IOException
+     */
+    public static DataSet load(int nClass, boolean hard) throws IOException {
+        if(nClass == 160 || nClass == 200) {
+            return new DataSet(String.format("timetable/%s/%d_classes.json", hard? "hard" : "soft", nClass));
+        }
+        return DataGenerator.generateDataset(nClass / 4, hard, new Random(nClass));
+    }
+}
@@ -0,0 +1,26 @@
+package app.timetable;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks with allocation profiling.
+ * Accepts the JMH command line options, for example a regular expression selecting the benchmarks
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Program entry point
+     * @throws Exception 
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                                .parent(new CommandLineOptions(args))
+                                .addProfiler(GCProfiler.class)
+                                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import api.Chromosome;
+import api.GAOptimizer;
+import app.timetable.BenchmarkDataSets;
+
+/**
+ * Optimizer exposing the genetic operators to the benchmarks
+ */
+class BenchmarkOptimizer extends GAOptimizer {
+
+    static final int POPULATION_SIZE = 500;
+
+    /**
+     * Create an optimizer on a hard constraint dataset, with an evaluated population
+     * @param nClass: number of classes of the dataset
+     * @param selectionType: type of selection
+     * @param crossOverType: type of crossover
+     * @param mutationType: type of mutation
+     * @param checkUnique: whether the elements of a combination need to be unique
+     * @return: the optimizer
+     * @throws IOException
+     */
+    static BenchmarkOptimizer create(int nClass, SelectionType selectionType, CrossOverType crossOverType,
+                                        MutationType mutationType, boolean checkUnique) throws IOException {
+        TimeTable.setDataSet(BenchmarkDataSets.load(nClass, true));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("maxIndex", TimeTable.N);
+        params.put("tournamentThresh", 0.9);
+
+        Random rand = new Random(nClass);
+        List<Chromosome> initialPopulation = new ArrayList<>();
+        for(int i = 0; i < POPULATION_SIZE; i++) {
+            initialPopulation.add(new TimeTableChromosome(TimeTable.evaluator, false, rand));
+        }
+
+        BenchmarkOptimizer optimizer = new BenchmarkOptimizer(initialPopulation, 50, 250, 0.2,
+                                                selectionType, crossOverType, mutationType, checkUnique, params);
+        optimizer.setRandom(new Random(1));
+        for(Chromosome c : optimizer.getPopulations()) {
+            c.getFitness();
+        }
+        return optimizer;
+    }
+
+    private BenchmarkOptimizer(List<Chromosome> initialPopulation, int eliteSize, int crossOverPoolSize, double mutationRate,
+                                SelectionType selectionType, CrossOverType crossOverType, MutationType mutationType,
+                                boolean checkUnique, Map<String, Object> extraParams) {
+        super(initialPopulation, eliteSize, crossOverPoolSize, mutationRate,
+                selectionType, crossOverType, mutationType, checkUnique, extraParams);
+    }
+
+    @Override
+    public Chromosome[] selectParents() {
+        return super.selectParents();
+    }
+
+    @Override
+    public Chromosome crossOver(Chromosome[] parents) {
+        return super.crossOver(parents);
+    }
+
+    @Override
+    public boolean mutateChromosome(Chromosome c) {
+        return super.mutateChromosome(c);
+    }
+}
@@ -0,0 +1,61 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.Chromosome;
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+
+/**
+ * Creation of a child from parents of the population, with and without the uniqueness check
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrossOverBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    @Param
+    public CrossOverType crossOverType;
+
+    @Param({"true", "false"})
+    public boolean checkUnique;
+
+    private BenchmarkOptimizer optimizer;
+    private Chromosome[] parents;
+
+    @Setup
+    public void setup() throws IOException {
+        optimizer = BenchmarkOptimizer.create(nClass, SelectionType.TOURNAMENT, crossOverType, MutationType.MUTATE_POINT, checkUnique);
+        Chromosome[] population = optimizer.getPopulations();
+        int nParent = crossOverType == CrossOverType.UNI_THREE_PARENT? 3 : 2;
+        parents = new Chromosome[nParent];
+        for(int i = 0; i < nParent; i++) {
+            parents[i] = population[i * population.length / nParent];
+        }
+    }
+
+    @Benchmark
+    public Chromosome crossOver() {
+        return optimizer.crossOver(parents);
+    }
+}
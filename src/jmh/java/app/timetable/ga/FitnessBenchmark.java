@@ -0,0 +1,75 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.timetable.BenchmarkDataSets;
+import app.timetable.model.DataSet;
+import util.CombinationUtil;
+
+/**
+ * Full fitness calculation of the genetic, simulated annealing and particle swarm solutions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnessBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    private TimeTableChromosome hardChromosome;
+    private TimeTableChromosome softChromosome;
+    private app.timetable.sa.Solution saSolution;
+    private app.timetable.pso.Solution psoSolution;
+
+    @Setup
+    public void setup() throws IOException {
+        DataSet hard = BenchmarkDataSets.load(nClass, true);
+        DataSet soft = BenchmarkDataSets.load(nClass, false);
+        TimeTable.setDataSet(hard);
+        TimeTableSoft.setDataSet(soft);
+
+        Random rand = new Random(nClass);
+        hardChromosome = new TimeTableChromosome(TimeTable.evaluator, false, rand);
+        softChromosome = new TimeTableChromosome(TimeTableSoft.evaluator, true, rand);
+        saSolution = new app.timetable.sa.Solution(hard, rand);
+        psoSolution = new app.timetable.pso.Solution(hard, CombinationUtil.genCombination(TimeTable.N, TimeTable.K, rand));
+    }
+
+    @Benchmark
+    public double gaHard() {
+        return hardChromosome.calcFitness();
+    }
+
+    @Benchmark
+    public double gaSoft() {
+        return softChromosome.calcFitness();
+    }
+
+    @Benchmark
+    public double sa() {
+        return saSolution.calcFitness();
+    }
+
+    @Benchmark
+    public double pso() {
+        return psoSolution.calcFitness();
+    }
+}
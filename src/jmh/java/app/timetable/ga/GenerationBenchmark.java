@@ -0,0 +1,91 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.Chromosome;
+import api.GAOptimizer;
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+import api.PrimitiveGAOptimizer;
+import app.timetable.BenchmarkDataSets;
+import util.CombinationUtil;
+
+/**
+ * One generation of the object engine and of the primitive engine on the same hard constraint problem,
+ * run through BenchmarkRunner to compare their allocation rates
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    @Param({"TOURNAMENT", "ROULETTE"})
+    public SelectionType selectionType;
+
+    private GAOptimizer objectEngine;
+    private PrimitiveGAOptimizer primitiveEngine;
+
+    @Setup
+    public void setup() throws IOException {
+        TimeTable.setDataSet(BenchmarkDataSets.load(nClass, true));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("maxIndex", TimeTable.N);
+        params.put("tournamentThresh", 0.9);
+
+        Random rand = new Random(nClass);
+        List<int[]> encoded = new ArrayList<>();
+        List<Chromosome> initialPopulation = new ArrayList<>();
+        for(int i = 0; i < BenchmarkOptimizer.POPULATION_SIZE; i++) {
+            encoded.add(CombinationUtil.genCombination(TimeTable.N, TimeTable.K, rand));
+            initialPopulation.add(new TimeTableChromosome(TimeTable.evaluator, false, encoded.get(i)));
+        }
+
+        objectEngine = new GAOptimizer(initialPopulation, 50, 250, 0.2,
+                                selectionType, CrossOverType.ONE_POINT, MutationType.MUTATE_POINT, true, params);
+        objectEngine.setRandom(new Random(1));
+        objectEngine.run(1);
+
+        primitiveEngine = new PrimitiveGAOptimizer(encoded, TimeTable.fitnessFunction, 50, 250, 0.2,
+                                selectionType, CrossOverType.ONE_POINT, MutationType.MUTATE_POINT, true, params);
+        primitiveEngine.setRandom(new Random(1));
+        primitiveEngine.run(1);
+    }
+
+    @Benchmark
+    public double objectGeneration() {
+        objectEngine.run(1);
+        return objectEngine.getPopulations()[0].getFitness();
+    }
+
+    @Benchmark
+    public double primitiveGeneration() {
+        primitiveEngine.run(1);
+        return primitiveEngine.getFitness(0);
+    }
+}
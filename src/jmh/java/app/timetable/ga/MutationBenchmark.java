@@ -0,0 +1,57 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.Chromosome;
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+
+/**
+ * Mutation of an evaluated chromosome, including the update of its fitness
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    @Param
+    public MutationType mutationType;
+
+    @Param({"true", "false"})
+    public boolean checkUnique;
+
+    private BenchmarkOptimizer optimizer;
+    private Chromosome chromosome;
+
+    @Setup
+    public void setup() throws IOException {
+        optimizer = BenchmarkOptimizer.create(nClass, SelectionType.TOURNAMENT, CrossOverType.ONE_POINT, mutationType, checkUnique);
+        chromosome = optimizer.getPopulations()[0];
+    }
+
+    @Benchmark
+    public double mutate() {
+        optimizer.mutateChromosome(chromosome);
+        return chromosome.getFitness();
+    }
+}
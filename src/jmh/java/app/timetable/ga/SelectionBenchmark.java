@@ -0,0 +1,51 @@
+package app.timetable.ga;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.Chromosome;
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+
+/**
+ * Selection of a mating pool from an evaluated population
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    @Param
+    public SelectionType selectionType;
+
+    private BenchmarkOptimizer optimizer;
+
+    @Setup
+    public void setup() throws IOException {
+        optimizer = BenchmarkOptimizer.create(nClass, selectionType, CrossOverType.ONE_POINT, MutationType.MUTATE_POINT, true);
+    }
+
+    @Benchmark
+    public Chromosome[] select() {
+        return optimizer.selectParents();
+    }
+}
@@ -0,0 +1,54 @@
+package app.timetable.tabusearch;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.timetable.BenchmarkDataSets;
+
+/**
+ * Full fitness calculation of the tabu search solutions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabuFitnessBenchmark {
+
+    @Param({"160", "200", "800", "2000"})
+    public int nClass;
+
+    private Solution hardSolution;
+    private Solution softSolution;
+
+    @Setup
+    public void setup() throws IOException {
+        Random rand = new Random(nClass);
+        hardSolution = new Solution(false, BenchmarkDataSets.load(nClass, true), rand);
+        softSolution = new Solution(true, BenchmarkDataSets.load(nClass, false), rand);
+    }
+
+    @Benchmark
+    public double hard() {
+        return hardSolution.calcHardFitness();
+    }
+
+    @Benchmark
+    public double soft() {
+        return softSolution.calcSoftFitness();
+    }
+}
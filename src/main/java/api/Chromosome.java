@@ -9,7 +9,7 @@ import java.util.Random;
 public abstract class Chromosome {
     
 	public int[] encoded;	
-    private Double fitness = null;
+    private volatile double fitness = Double.NaN;
     
     /**
      * Calculate the fitness of the chromosome
@@ -30,6 +30,32 @@ public abstract class Chromosome {
      */
     abstract protected Chromosome fromEncoded(int[] encoded);
     
+    /**
+     * Check whether the chromosome can update its fitness incrementally after a move,
+     * see {@link #applyMoveWithFitness(double, int, int, int, int)}
+     * @return: true if moves can be evaluated incrementally
+     */
+    protected boolean supportsIncrementalFitness() {
+        return false;
+    }
+    
+    /**
+     * Apply a move and calculate the resulting fitness from the fitness before the move, 
+     * in time proportional to the genes affected by the move.
+     * The move sets gene i to vi then, if j >= 0, gene j to vj.
+     * Only called while the fitness is cached
+     * @param fitness: fitness before the move
+     * @param i: first changed gene
+     * @param vi: new value of gene i
+     * @param j: second changed gene, -1 if only gene i changes
+     * @param vj: new value of gene j
+     * @return: fitness after the move, or NaN if the move cannot be evaluated incrementally, 
+     *          in which case the encoded value must be left unchanged
+     */
+    protected double applyMoveWithFitness(double fitness, int i, int vi, int j, int vj) {
+        return Double.NaN;
+    }
+    
     /**
      * Constructor
      * @param encoded: encoded value of the solution 
@@ -50,22 +76,80 @@ public abstract class Chromosome {
     }
     
     /**
-     * Get fitness of the solution
+     * Get fitness of the solution.
+     * Safe to call from several threads: calcFitness() only reads the encoded value,
+     * so concurrent callers at worst compute the same value twice
      */
     public double getFitness() {
+        double f = fitness;
+        
+        if(Double.isNaN(f)) {
+            f = calcFitness();
+            fitness = f;
+        }
+        
+        return f;
+    }
+    
+    /**
+     * Check whether the fitness has already been calculated
+     * @return: true if the fitness is cached
+     */
+    public boolean isEvaluated() {
+        return !Double.isNaN(fitness);
+    }
+    
+    /**
+     * Apply a move of one or two genes: set gene i to vi then, if j >= 0, gene j to vj.
+     * The cached fitness is updated incrementally when the chromosome supports it, cleared otherwise
+     * @param i: first changed gene
+     * @param vi: new value of gene i
+     * @param j: second changed gene, -1 if only gene i changes
+     * @param vj: new value of gene j
+     */
+    public void applyMove(int i, int vi, int j, int vj) {
+        if(j == i) {
+            vi = vj;
+            j = -1;
+        }
         
-        if(fitness == null) {
-            fitness = calcFitness();            
+        double f = fitness;
+        if(!Double.isNaN(f) && supportsIncrementalFitness()) {
+            double newFitness = applyMoveWithFitness(f, i, vi, j, vj);
+            if(!Double.isNaN(newFitness)) {
+                fitness = newFitness;
+                return;
+            }
         }
         
-        return fitness;
+        encoded[i] = vi;
+        if(j >= 0) encoded[j] = vj;
+        clearFitness();
+    }
+    
+    /**
+     * Set a fitness known from elsewhere, such as a fitness cache
+     * @param fitness: fitness of the encoded value
+     */
+    void setFitness(double fitness) {
+        this.fitness = fitness;
     }
     
     /**
      * Clear fitness from cache
      */
     public void clearFitness() {
-        fitness = null;
+        fitness = Double.NaN;
+    }
+    
+    /**
+     * Create a copy of the chromosome which keeps the cached fitness
+     * @return: Chromosome
+     */
+    Chromosome copy() {
+        Chromosome c = fromEncoded(encoded);
+        c.fitness = fitness;
+        return c;
     }
     
     /**
@@ -0,0 +1,63 @@
+package api;
+
+import java.util.Random;
+
+/**
+ * Weighted random selection over a cumulative weight array.
+ * The array is built once per generation, then each draw is a binary search
+ */
+final class CumulativeSelector {
+
+    private double[] cumulative = new double[16];
+    private int size = 0;
+
+    /**
+     * Remove all weights
+     * @param capacity: expected number of weights
+     */
+    void reset(int capacity) {
+        if(cumulative.length < capacity) {
+            cumulative = new double[capacity];
+        }
+        size = 0;
+    }
+
+    /**
+     * Append a weight
+     * @param weight: non negative weight of the next item
+     */
+    void add(double weight) {
+        if(size == cumulative.length) {
+            double[] tmp = new double[2 * size];
+            System.arraycopy(cumulative, 0, tmp, 0, size);
+            cumulative = tmp;
+        }
+        cumulative[size] = size == 0? weight : cumulative[size - 1] + weight;
+        size++;
+    }
+
+    /**
+     * Draw an item with probability proportional to its weight
+     * @param rand: random generator
+     * @return: position of the item, in the order the weights were added
+     */
+    int draw(Random rand) {
+        double r = rand.nextDouble();
+        double total = cumulative[size - 1];
+        if(total <= 0) {
+            return (int) (r * size);
+        }
+
+        double target = r * total;
+        int lo = 0, hi = size - 1;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(cumulative[mid] > target) {
+                hi = mid;
+            }else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
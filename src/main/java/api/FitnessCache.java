@@ -0,0 +1,203 @@
+package api;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of fitness values keyed by encoded value, shared across generations.
+ * The cache is split into segments guarded by their own lock, so it can be used by parallel evaluation
+ */
+public class FitnessCache {
+
+    /**
+     * Policy used to choose the entry removed when a segment is full
+     */
+    public static enum EvictionPolicy {
+        LRU,
+        FIFO,
+    }
+
+    /**
+     * Key of the cache, equality is checked on the whole encoded value so that hash collisions are harmless
+     */
+    private static final class Key {
+        final int[] encoded;
+        final int hash;
+
+        Key(int[] encoded, int hash) {
+            this.encoded = encoded;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return hash == other.hash && Arrays.equals(encoded, other.encoded);
+        }
+    }
+
+    /**
+     * Part of the cache with its own capacity and lock
+     */
+    private static final class Segment extends LinkedHashMap<Key, Double> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Segment(int capacity, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor
+     * @param capacity: maximum number of cached fitness values
+     * @param policy: eviction policy
+     */
+    public FitnessCache(int capacity, EvictionPolicy policy) {
+        int nSegment = 1;
+        while(nSegment < 64 && nSegment * 256 < capacity) nSegment *= 2;
+
+        segments = new Segment[nSegment];
+        for(int i = 0; i < nSegment; i++) {
+            segments[i] = new Segment(Math.max(1, capacity / nSegment), policy == EvictionPolicy.LRU);
+        }
+    }
+
+    /**
+     * Constructor, least recently used entries are evicted first
+     * @param capacity: maximum number of cached fitness values
+     */
+    public FitnessCache(int capacity) {
+        this(capacity, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Hash an encoded value
+     * @param encoded: encoded value
+     * @return: hash
+     */
+    private static int hash(int[] encoded) {
+        long h = 0x9E3779B97F4A7C15L;
+        for(int x : encoded) {
+            h = (h ^ x) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the segment of a hash
+     */
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & (segments.length - 1)];
+    }
+
+    /**
+     * Get the cached fitness of an encoded value
+     * @param encoded: encoded value
+     * @return: fitness, NaN if the value is not cached
+     */
+    public double get(int[] encoded) {
+        int h = hash(encoded);
+        Key key = new Key(encoded, h);
+        Segment segment = segmentFor(h);
+
+        Double fitness;
+        synchronized(segment) {
+            fitness = segment.get(key);
+        }
+
+        if(fitness == null) {
+            misses.increment();
+            return Double.NaN;
+        }
+        hits.increment();
+        return fitness;
+    }
+
+    /**
+     * Store the fitness of an encoded value
+     * @param encoded: encoded value, copied by the cache
+     * @param fitness: fitness
+     */
+    public void put(int[] encoded, double fitness) {
+        int[] copy = Arrays.copyOf(encoded, encoded.length);
+        int h = hash(copy);
+        Segment segment = segmentFor(h);
+
+        synchronized(segment) {
+            segment.put(new Key(copy, h), fitness);
+        }
+    }
+
+    /**
+     * Get the number of lookups which found a cached value
+     * @return: number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which did not find a cached value
+     * @return: number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the ratio of lookups which found a cached value
+     * @return: hit rate, 0 if there was no lookup
+     */
+    public double getHitRate() {
+        long h = getHits(), total = h + getMisses();
+        return total == 0? 0 : (double) h / total;
+    }
+
+    /**
+     * Get the number of cached values
+     * @return: size of the cache
+     */
+    public int size() {
+        int size = 0;
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all cached values and reset the counters
+     */
+    public void clear() {
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+}
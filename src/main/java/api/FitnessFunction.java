@@ -0,0 +1,16 @@
+package api;
+
+/**
+ * Fitness of an encoded value stored inside a larger array
+ */
+public interface FitnessFunction {
+
+    /**
+     * Calculate the fitness of an encoded value
+     * @param genes: array containing the encoded value
+     * @param offset: position of the first gene of the encoded value
+     * @param length: number of genes
+     * @return: fitness
+     */
+    double calcFitness(int[] genes, int offset, int length);
+}
@@ -0,0 +1,111 @@
+package api;
+
+/**
+ * Ordering of population indexes by a primitive fitness array, without boxing
+ */
+final class FitnessSort {
+
+    private static final int INSERTION_THRESHOLD = 16;
+
+    private FitnessSort() {
+    }
+
+    /**
+     * Sort indexes by decreasing fitness
+     * @param fitness: fitness of each index
+     * @param indexes: indexes to be sorted
+     * @param from: first position (inclusive)
+     * @param to: last position (exclusive)
+     */
+    static void sortDescending(double[] fitness, int[] indexes, int from, int to) {
+        while(to - from > INSERTION_THRESHOLD) {
+            long bounds = partition(fitness, indexes, from, to);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            if(lt - from < to - gt) {
+                sortDescending(fitness, indexes, from, lt);
+                from = gt;
+            }else {
+                sortDescending(fitness, indexes, gt, to);
+                to = lt;
+            }
+        }
+        insertionSort(fitness, indexes, from, to);
+    }
+
+    /**
+     * Move the best indexes to the front of a range by quickselect, in expected linear time.
+     * The selected indexes are left in no particular order
+     * @param fitness: fitness of each index
+     * @param indexes: indexes to be partitioned
+     * @param from: first position (inclusive)
+     * @param to: last position (exclusive)
+     * @param k: number of best indexes to be moved to [from, from + k)
+     */
+    static void selectTop(double[] fitness, int[] indexes, int from, int to, int k) {
+        int boundary = from + k;
+        while(to - from > INSERTION_THRESHOLD) {
+            if(boundary <= from || boundary >= to) return;
+
+            long bounds = partition(fitness, indexes, from, to);
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+            if(boundary < lt) {
+                to = lt;
+            }else if(boundary > gt) {
+                from = gt;
+            }else {
+                return;
+            }
+        }
+        insertionSort(fitness, indexes, from, to);
+    }
+
+    /**
+     * Sort a small range by insertion
+     */
+    private static void insertionSort(double[] fitness, int[] indexes, int from, int to) {
+        for(int i = from + 1; i < to; i++) {
+            int index = indexes[i];
+            double f = fitness[index];
+            int j = i - 1;
+            while(j >= from && fitness[indexes[j]] < f) {
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+        }
+    }
+
+    /**
+     * Three-way partition of a range around a median-of-three pivot, larger fitness first.
+     * After the call, [from, lt) is better than the pivot, [lt, gt) equals it and [gt, to) is worse
+     * @return: lt in the high 32 bits, gt in the low 32 bits
+     */
+    static long partition(double[] fitness, int[] indexes, int from, int to) {
+        int last = to - 1;
+        int mid = (from + last) >>> 1;
+        double a = fitness[indexes[from]], b = fitness[indexes[mid]], c = fitness[indexes[last]];
+        double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+        int lt = from, i = from, gt = to;
+        while(i < gt) {
+            double f = fitness[indexes[i]];
+            if(f > pivot) {
+                swap(indexes, lt++, i++);
+            }else if(f < pivot) {
+                swap(indexes, i, --gt);
+            }else {
+                i++;
+            }
+        }
+        return ((long) lt << 32) | gt;
+    }
+
+    /**
+     * Swap two positions of an array
+     */
+    private static void swap(int[] arr, int i, int j) {
+        int tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+}
@@ -1,12 +1,13 @@
 package api;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * Genetic optimizer engine
@@ -20,6 +21,7 @@ public class GAOptimizer {
         ROULETTE,
         TOURNAMENT,
         REFINED,
+        RANK,
     }
     
     /**
@@ -51,6 +53,20 @@ public class GAOptimizer {
     protected int generation = 0;
     protected boolean checkUnique;
     protected Map<String, Object> extraParams;
+    protected ForkJoinPool evaluationPool;
+    protected FitnessCache fitnessCache;
+    private GeneMarker marker = new GeneMarker();
+    private CumulativeSelector selector = new CumulativeSelector();
+    private Chromosome[] preselected = new Chromosome[0];
+    private double[] rankFitness = new double[0];
+    private int[] rankOrder = new int[0];
+    private Chromosome[] nextPopulation;
+    private double[] survivorFitness;
+    private int[] survivorOrder;
+    private Chromosome[] twoParents = new Chromosome[2];
+    private Chromosome[] threeParents = new Chromosome[3];
+    private ListenerDispatcher dispatcher = new ListenerDispatcher();
+    private LongAdder evaluationCount = new LongAdder();
     
     /**
      * Constructor
@@ -68,6 +84,9 @@ public class GAOptimizer {
                         boolean checkUnique, Map<String, Object> params) {
         
         this.population = initialPopulation.toArray(new Chromosome[0]);
+        this.nextPopulation = new Chromosome[population.length];
+        this.survivorFitness = new double[population.length];
+        this.survivorOrder = new int[population.length];
         this.eliteSize = eliteSize;
         this.crossOverPoolSize = crossOverPoolSize;
         this.chromosomeMutationRate = mutationRate;
@@ -97,25 +116,150 @@ public class GAOptimizer {
     }
 
     /**
-     * Get the population of the engine
+     * Set the pool used to evaluate the children of each generation
+     * @param evaluationPool: pool for parallel fitness evaluation, null to evaluate on the calling thread
+     */
+    public void setEvaluationPool(ForkJoinPool evaluationPool) {
+        this.evaluationPool = evaluationPool;
+    }
+
+    /**
+     * Set the random generator of the engine, for example a stream of util.RandomStreams to make a run reproducible
+     * @param rand: random generator, used by the engine thread only
+     */
+    public void setRandom(Random rand) {
+        this.rand = rand;
+    }
+    
+    /**
+     * Add a listener receiving the metrics of sampled generations
+     * @param listener: listener, called on a background thread
+     */
+    public void addGenerationListener(GenerationListener listener) {
+        dispatcher.addListener(listener);
+    }
+    
+    /**
+     * Remove a listener
+     * @param listener: listener
+     */
+    public void removeGenerationListener(GenerationListener listener) {
+        dispatcher.removeListener(listener);
+    }
+    
+    /**
+     * Set how often listeners are called
+     * @param sampleRate: listeners are called every sampleRate generations
+     */
+    public void setListenerSampleRate(int sampleRate) {
+        dispatcher.setSampleRate(sampleRate);
+    }
+    
+    /**
+     * Get the population of the engine.
+     * The elite chromosomes come first, sorted by decreasing fitness, the others are in no particular order
      * @return: population
      */
     public Chromosome[] getPopulations() {
         return population;
     }
     
+    /**
+     * Set the cache used to avoid recalculating the fitness of encoded values already seen
+     * @param fitnessCache: shared fitness cache, null to disable caching
+     */
+    public void setFitnessCache(FitnessCache fitnessCache) {
+        this.fitnessCache = fitnessCache;
+    }
+    
+    /**
+     * Get copies of the best chromosomes, to be sent to other populations
+     * @param count: number of chromosomes
+     * @return: copies of the best chromosomes
+     */
+    public Chromosome[] getEmigrants(int count) {
+        count = Math.min(count, population.length);
+        if(count > getSortedSize()) {
+            rankInto(population, nextPopulation, count, count);
+            swapPopulations();
+        }
+        
+        Chromosome[] emigrants = new Chromosome[count];
+        for(int i = 0; i < count; i++) {
+            emigrants[i] = population[i].copy();
+        }
+        return emigrants;
+    }
+    
+    /**
+     * Replace the worst chromosomes of the population by chromosomes coming from other populations
+     * @param immigrants: chromosomes to be inserted
+     */
+    public void acceptImmigrants(Chromosome[] immigrants) {
+        int N = population.length;
+        int n = Math.min(immigrants.length, N - eliteSize);
+        
+        // move the n worst chromosomes to the end before replacing them
+        rankInto(population, nextPopulation, N - n, 0);
+        for(int i = 0; i < n; i++) {
+            nextPopulation[N - 1 - i] = immigrants[i];
+        }
+        
+        evaluate(nextPopulation);
+        rankInto(nextPopulation, population, getSortedSize(), getSortedSize());
+    }
+    
+    /**
+     * Get the number of chromosomes kept sorted at the front of the population
+     * @return: number of sorted chromosomes
+     */
+    private int getSortedSize() {
+        return Math.min(Math.max(eliteSize, 1), population.length);
+    }
+    
+    /**
+     * Order chromosomes so that the best ones come first, using a partial selection instead of a full sort
+     * @param source: chromosomes to be ordered
+     * @param target: output array, distinct from the source
+     * @param nBest: number of best chromosomes moved to the front of the target
+     * @param nSorted: number of those best chromosomes sorted by decreasing fitness
+     */
+    private void rankInto(Chromosome[] source, Chromosome[] target, int nBest, int nSorted) {
+        int N = source.length;
+        for(int i = 0; i < N; i++) {
+            survivorFitness[i] = source[i].getFitness();
+            survivorOrder[i] = i;
+        }
+        
+        FitnessSort.selectTop(survivorFitness, survivorOrder, 0, N, nBest);
+        FitnessSort.sortDescending(survivorFitness, survivorOrder, 0, nSorted);
+        
+        for(int i = 0; i < N; i++) {
+            target[i] = source[survivorOrder[i]];
+        }
+    }
+    
+    /**
+     * Exchange the current population with the back buffer
+     */
+    private void swapPopulations() {
+        Chromosome[] tmp = population;
+        population = nextPopulation;
+        nextPopulation = tmp;
+    }
+    
     /**
      * Perform selection for mating
      * @return: mating pool containing of chromosomes
      */
     protected Chromosome[] selectParents() {
         if(selectionType == SelectionType.ROULETTE) {
-            return rouletteSelectParents(population, crossOverPoolSize);
+            return rouletteSelectParents(population, population.length, crossOverPoolSize);
         }
         
         if(selectionType == SelectionType.TOURNAMENT) {
             double tournamentThresh = (Double) extraParams.get("tournamentThresh");
-            return tournamentSelectParents(population, crossOverPoolSize, tournamentThresh);
+            return tournamentSelectParents(population, new Chromosome[crossOverPoolSize], crossOverPoolSize, tournamentThresh);
         }
         
         if(selectionType == SelectionType.REFINED) {
@@ -123,6 +267,10 @@ public class GAOptimizer {
             return refineSelectParents(population, crossOverPoolSize, tournamentThresh);
         }
         
+        if(selectionType == SelectionType.RANK) {
+            return rankSelectParents(population, crossOverPoolSize);
+        }
+        
         throw new RuntimeException("Unsupported selection type: " + selectionType);
         
     }
@@ -130,41 +278,61 @@ public class GAOptimizer {
     /**
      * Perform roulette selection
      * @param pool : the source for selection
+     * @param poolSize: number of chromosomes of the pool to select from
      * @param nSelected: the size of mating pool 
      * @return: mating pool containing of chromosomes 
      */
-    private Chromosome[] rouletteSelectParents(Chromosome[] pool, int nSelected) {
-
-        double total_fitness = 0;
-        for(Chromosome c : pool) total_fitness += c.getFitness();
-        List<Chromosome> parents = new ArrayList<>();
-                
-        while(parents.size() < nSelected) {
-            double r = rand.nextDouble();
-            int k = 0;
-            double acc_fitness = 0;
-            
-            while(acc_fitness <= r * total_fitness) {
-                acc_fitness += pool[k].getFitness();
-                k += 1;
-            }
-            
-            parents.add(pool[k-1]);
+    private Chromosome[] rouletteSelectParents(Chromosome[] pool, int poolSize, int nSelected) {
+        
+        selector.reset(poolSize);
+        for(int k = 0; k < poolSize; k++) selector.add(pool[k].getFitness());
+        
+        Chromosome[] parents = new Chromosome[nSelected];
+        for(int i = 0; i < nSelected; i++) {
+            parents[i] = pool[selector.draw(rand)];
         }
-        return parents.toArray(new Chromosome[0]);
+        return parents;
     }
     
     /**
-     * Perform tournament selection
+     * Perform linear rank selection, the k-th best of n chromosomes is drawn with a weight of n - k
      * @param pool : the source for selection
      * @param nSelected: the size of mating pool 
      * @return: mating pool containing of chromosomes 
      */
-    private Chromosome[] tournamentSelectParents(Chromosome[] pool, int nSelected, double tournamentThresh) {
+    private Chromosome[] rankSelectParents(Chromosome[] pool, int nSelected) {
+        int n = pool.length;
+        if(rankOrder.length < n) {
+            rankFitness = new double[n];
+            rankOrder = new int[n];
+        }
+        
+        for(int k = 0; k < n; k++) {
+            rankFitness[k] = pool[k].getFitness();
+            rankOrder[k] = k;
+        }
+        FitnessSort.sortDescending(rankFitness, rankOrder, 0, n);
         
-        List<Chromosome> parents = new ArrayList<>();
+        selector.reset(n);
+        for(int k = 0; k < n; k++) selector.add(n - k);
         
-        while(parents.size() < nSelected) {
+        Chromosome[] parents = new Chromosome[nSelected];
+        for(int i = 0; i < nSelected; i++) {
+            parents[i] = pool[rankOrder[selector.draw(rand)]];
+        }
+        return parents;
+    }
+    
+    /**
+     * Perform tournament selection
+     * @param pool : the source for selection
+     * @param parents: output array for the mating pool
+     * @param nSelected: the size of mating pool 
+     * @return: mating pool containing of chromosomes 
+     */
+    private Chromosome[] tournamentSelectParents(Chromosome[] pool, Chromosome[] parents, int nSelected, double tournamentThresh) {
+        
+        for(int i = 0; i < nSelected; i++) {
             int index1 = (int) (rand.nextDouble() * pool.length);
             int index2 = (int) (rand.nextDouble() * pool.length - 1);
             index2 = (index1 + index2 + 1) % (pool.length);
@@ -178,9 +346,9 @@ public class GAOptimizer {
                 parent =  c1.getFitness() > c2.getFitness()? c2 : c1;
             }
             
-            parents.add(parent);
+            parents[i] = parent;
         }
-        return parents.toArray(new Chromosome[0]);
+        return parents;
     }
     
     /**
@@ -192,8 +360,9 @@ public class GAOptimizer {
     private Chromosome[] refineSelectParents(Chromosome[] pool, int nSelected, double tournamentThresh) {
         int nPreselected = (int) (nSelected*1.5);
         if(nPreselected > pool.length) nPreselected = pool.length;
-        Chromosome[] pool2 = tournamentSelectParents(pool, nPreselected , tournamentThresh);
-        return rouletteSelectParents(pool2, nSelected);
+        if(preselected.length < nPreselected) preselected = new Chromosome[nPreselected];
+        tournamentSelectParents(pool, preselected, nPreselected , tournamentThresh);
+        return rouletteSelectParents(preselected, nPreselected, nSelected);
     }
         
     /**
@@ -228,25 +397,35 @@ public class GAOptimizer {
         
         int N = parent1.encoded.length;
         int[] indexes1 = new int[N];
-        System.arraycopy(parent1.encoded, 0 , indexes1, 0, N);
-        
-        List<Integer> indexes2 = new ArrayList<>();            
-        for(int index : parent2.encoded) indexes2.add(index);
         
+        marker.clear();
         for(int i = 0; i < N; i++) {
             if(rand.nextBoolean()) {
-                indexes2.remove((Integer) indexes1[i]);
+                indexes1[i] = parent1.encoded[i];
+                marker.mark(indexes1[i]);
             }else {
                 indexes1[i] = -1;
             }
         }
         
-        for(int i = 0; i < N; i++) {
-            if(indexes1[i] < 0) {
-                indexes1[i] = indexes2.remove(0);
+        fillFrom(parent2.encoded, indexes1, 0);
+        return parent1.fromEncoded(indexes1);
+    }
+    
+    /**
+     * Fill the empty elements of a child with the elements of a parent which are not marked, in the parent's order
+     * @param source: encoded value of the parent
+     * @param indexes: encoded value of the child, empty elements are negative
+     * @param from: first element of the child which may be empty
+     */
+    private void fillFrom(int[] source, int[] indexes, int from) {
+        int k = 0;
+        for(int i = from; i < indexes.length; i++) {
+            if(indexes[i] < 0) {
+                while(marker.isMarked(source[k])) k++;
+                indexes[i] = source[k++];
             }
         }
-        return parent1.fromEncoded(indexes1);
     }
         
 
@@ -284,20 +463,19 @@ public class GAOptimizer {
         
         int N = parent1.encoded.length;
         int[] indexes1 = new int[N];
-        System.arraycopy(parent1.encoded, 0 , indexes1, 0, N);
-                
-        List<Integer> indexes2 = new ArrayList<>();            
-        for(int index : parent2.encoded) indexes2.add(index);
         
         int p = (int) (rand.nextDouble() * N);        // cross over point
+        marker.clear();
         for(int i = 0; i < p; i++) {
-            indexes2.remove((Integer) indexes1[i]);
+            indexes1[i] = parent1.encoded[i];
+            marker.mark(indexes1[i]);
         }
-                
+        
         for(int i = p; i < N; i++) {
-            indexes1[i] = indexes2.remove(0);
+            indexes1[i] = -1;
         }
         
+        fillFrom(parent2.encoded, indexes1, p);
         return parent1.fromEncoded(indexes1);
     }
     
@@ -333,24 +511,18 @@ public class GAOptimizer {
                 
         int N = parent1.encoded.length;
         int[] indexes1 = new int[N];
-        System.arraycopy(parent1.encoded, 0 , indexes1, 0, N);
-        
-        List<Integer> indexes3 = new ArrayList<>();            
-        for(int index : parent3.encoded) indexes3.add(index);
         
+        marker.clear();
         for(int i = 0; i < N; i++) {
             if(parent1.encoded[i] == parent2.encoded[i]) {
-                indexes3.remove((Integer) indexes1[i]);
+                indexes1[i] = parent1.encoded[i];
+                marker.mark(indexes1[i]);
             }else {
                 indexes1[i] = -1;
             }
         }
         
-        for(int i = 0; i < N; i++) {
-            if(indexes1[i] < 0) {
-                indexes1[i] = indexes3.remove(0);
-            }
-        }
+        fillFrom(parent3.encoded, indexes1, 0);
         return parent1.fromEncoded(indexes1);
     }
     
@@ -430,10 +602,7 @@ public class GAOptimizer {
         int i = (int)(N*rand.nextDouble());
         int j = (int)((N-1) * rand.nextDouble());
         j = (i + j + 1) % N;
-        int tmp = c.encoded[i];
-        c.encoded[i] = c.encoded[j];
-        c.encoded[j] = tmp;
-        c.clearFitness();
+        c.applyMove(i, c.encoded[j], j, c.encoded[i]);
        
         return true;
     }
@@ -446,8 +615,7 @@ public class GAOptimizer {
     private boolean mutateOnePointUnchecked(Chromosome c) {
         int N = (Integer) extraParams.getOrDefault("maxIndex", c.encoded.length);
         int i = (int)(rand.nextDouble() * c.encoded.length);
-        c.encoded[i] = (int)(rand.nextDouble() * N);                
-        c.clearFitness();
+        c.applyMove(i, (int)(rand.nextDouble() * N), -1, 0);
         
         return true;
     }
@@ -471,11 +639,7 @@ public class GAOptimizer {
             }
         }
         
-        int tmp = c.encoded[i];
-        c.encoded[i] = index;
-        if(j >= 0) c.encoded[j] = tmp;
-        
-        c.clearFitness();
+        c.applyMove(i, index, j, c.encoded[i]);
         
         return true;
     }
@@ -498,19 +662,59 @@ public class GAOptimizer {
     }
         
     /**
-     * Print information after each generation
+     * Publish the metrics of the generation to the listeners if it is sampled
      */
-    private void printInfo() {
-        if(generation % 1000 == 0) {
-            System.out.println("Generation " + generation + ", fitness:" + population[0].getFitness());
-            
-            /*
-            for(int i = 0; i < 20; i ++) {
-                Chromosome c = population[i];            
-                System.out.print("Fitness:");
-                System.out.print(String.format("%f ", c.getFitness()));
-                System.out.println(", Chromosome : " + c.toString());
-            }*/
+    private void publishStats() {
+        dispatcher.addEvaluations(evaluationCount.sumThenReset());
+        if(!dispatcher.isSampled(generation)) return;
+        
+        double best = Double.NEGATIVE_INFINITY, worst = Double.POSITIVE_INFINITY, total = 0;
+        for(Chromosome c : population) {
+            double f = c.getFitness();
+            best = Math.max(best, f);
+            worst = Math.min(worst, f);
+            total += f;
+        }
+        
+        double diversity = ListenerDispatcher.estimateDiversity((i, g) -> population[i].encoded[g], 
+                                population.length, population[0].encoded.length);
+        dispatcher.publish(generation, best, total / population.length, worst, diversity);
+    }
+    
+    /**
+     * Calculate the fitness of all chromosomes before they are ranked
+     * @param chromosomes: chromosomes to be evaluated
+     */
+    protected void evaluate(Chromosome[] chromosomes) {
+        if(evaluationPool == null) {
+            for(Chromosome c : chromosomes) evaluate(c);
+            return;
+        }
+        
+        evaluationPool.submit(() -> Arrays.stream(chromosomes).parallel().forEach(this::evaluate)).join();
+    }
+    
+    /**
+     * Calculate the fitness of a chromosome, using the fitness cache if any
+     * @param c: chromosome to be evaluated
+     */
+    private void evaluate(Chromosome c) {
+        if(c.isEvaluated()) {
+            return;
+        }
+        
+        if(fitnessCache == null) {
+            c.getFitness();
+            evaluationCount.increment();
+            return;
+        }
+        
+        double fitness = fitnessCache.get(c.encoded);
+        if(Double.isNaN(fitness)) {
+            fitnessCache.put(c.encoded, c.getFitness());
+            evaluationCount.increment();
+        }else {
+            c.setFitness(fitness);
         }
     }
     
@@ -518,12 +722,14 @@ public class GAOptimizer {
      * Create new generation
      */
     private void nextGeneration(int numStep) {
+        long t0 = System.nanoTime();
         Chromosome[] parents = selectParents();
-     
+        long t1 = System.nanoTime();
         
-        Chromosome[] children = new Chromosome[population.length - eliteSize];
+        int N = population.length;
+        System.arraycopy(population, 0, nextPopulation, 0, eliteSize);
         
-        for(int i = 0; i < population.length - eliteSize; i++) {
+        for(int i = eliteSize; i < N; i++) {
             Chromosome parent1 = parents[(int)(rand.nextDouble() * crossOverPoolSize)];
             
             Chromosome parent2;
@@ -532,42 +738,126 @@ public class GAOptimizer {
             }while(parent2 == parent1);
             
             if(getNumberOfParents() == 2) {
-                children[i] = crossOver(new Chromosome[] {parent1, parent2});
+                twoParents[0] = parent1;
+                twoParents[1] = parent2;
+                nextPopulation[i] = crossOver(twoParents);
             }else {
                 
                 Chromosome parent3;
                 do {
                     parent3 = parents[(int)(rand.nextDouble() * crossOverPoolSize)];
                 }while(parent3 == parent1 || parent3 == parent2);
-                children[i] = crossOver(new Chromosome[] {parent1, parent2, parent3});
+                threeParents[0] = parent1;
+                threeParents[1] = parent2;
+                threeParents[2] = parent3;
+                nextPopulation[i] = crossOver(threeParents);
             }
         }
+        long t2 = System.nanoTime();
         
-        for(Chromosome c : children) {            
+        for(int i = eliteSize; i < N; i++) {
+            Chromosome c = nextPopulation[i];
             
+            // a crossover child has no fitness yet, so its mutation only sets the genes
+            // and the child is evaluated, through the cache, with the others
             if(rand.nextDouble() < chromosomeMutationRate) {
                 mutateChromosome(c);                
             }
         }
         
-        List<Chromosome> newPopulation = new ArrayList<>();
-        newPopulation.addAll(Arrays.asList(population).subList(0, eliteSize));
-        newPopulation.addAll(Arrays.asList(children));
-        Collections.sort(newPopulation, (c1, c2) -> Double.compare(c2.getFitness(), c1.getFitness()));
-        population = newPopulation.toArray(new Chromosome[0]);
+        long t3 = System.nanoTime();
+        
+        evaluate(nextPopulation);
+        long t4 = System.nanoTime();
+        
+        rankInto(nextPopulation, population, getSortedSize(), getSortedSize());
+        long t5 = System.nanoTime();
+        
+        dispatcher.addStageTime(ListenerDispatcher.SELECTION, t1 - t0);
+        dispatcher.addStageTime(ListenerDispatcher.CROSSOVER, t2 - t1);
+        dispatcher.addStageTime(ListenerDispatcher.MUTATION, t3 - t2);
+        dispatcher.addStageTime(ListenerDispatcher.EVALUATION, t4 - t3);
+        dispatcher.addStageTime(ListenerDispatcher.SORT, t5 - t4);
         
         generation += 1;        
     }
             
+    /**
+     * Replace the non-elite population by new random chromosomes
+     * @param factory: creates a random chromosome
+     */
+    private void restart(Function<Random, Chromosome> factory) {
+        for(int i = eliteSize; i < population.length; i++) {
+            population[i] = factory.apply(rand);
+        }
+        
+        evaluate(population);
+        rankInto(population, nextPopulation, getSortedSize(), getSortedSize());
+        swapPopulations();
+    }
+            
     /**
      * Run the engine
      * @param numStep: number of step to run
      */
     public void run(int numStep) {
-
-        for(int i = 0; i < numStep; i++) {                
+        run(numStep, new TerminationCriteria());
+    }
+    
+    /**
+     * Run the engine until the number of step is reached or a stopping criterion is met
+     * @param numStep: maximum number of step to run
+     * @param criteria: stopping criteria and restart policy
+     * @return: number of step actually run
+     */
+    public int run(int numStep, TerminationCriteria criteria) {
+        long start = System.nanoTime();
+        
+        evaluate(population);
+        if(generation == 0) {
+            rankInto(population, nextPopulation, getSortedSize(), getSortedSize());
+            swapPopulations();
+        }
+        
+        double bestFitness = Double.NEGATIVE_INFINITY;
+        for(Chromosome c : population) bestFitness = Math.max(bestFitness, c.getFitness());
+        
+        int stagnant = 0, stagnantSinceRestart = 0;
+        int step = 0;
+        
+        while(step < numStep && bestFitness < criteria.targetFitness) {
+            if(criteria.timeBudgetMillis > 0 && System.nanoTime() - start >= criteria.timeBudgetMillis * 1000000) {
+                break;
+            }
+            if(criteria.cancellationToken != null && criteria.cancellationToken.isCancelled()) {
+                break;
+            }
+            
             nextGeneration(numStep);
-            printInfo();
+            publishStats();
+            step++;
+            
+            double fitness = population[0].getFitness();
+            if(fitness > bestFitness) {
+                bestFitness = fitness;
+                stagnant = 0;
+                stagnantSinceRestart = 0;
+            }else {
+                stagnant++;
+                stagnantSinceRestart++;
+            }
+            
+            if(criteria.maxStagnantGenerations > 0 && stagnant >= criteria.maxStagnantGenerations) {
+                break;
+            }
+            
+            if(criteria.restartStagnantGenerations > 0 && criteria.restartFactory != null
+                    && stagnantSinceRestart >= criteria.restartStagnantGenerations) {
+                restart(criteria.restartFactory);
+                stagnantSinceRestart = 0;
+            }
         }
+        
+        return step;
     }
 }
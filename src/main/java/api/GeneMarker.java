@@ -0,0 +1,44 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * Set of gene values which can be cleared in constant time
+ * A value is marked when its stamp equals the current round, so clearing only increments the round
+ */
+final class GeneMarker {
+
+    private int[] stamps = new int[0];
+    private int round = 0;
+
+    /**
+     * Remove all marked values
+     */
+    void clear() {
+        round++;
+        if(round == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            round = 1;
+        }
+    }
+
+    /**
+     * Mark a value
+     * @param value: non negative gene value
+     */
+    void mark(int value) {
+        if(value >= stamps.length) {
+            stamps = Arrays.copyOf(stamps, Math.max(value + 1, 2 * stamps.length));
+        }
+        stamps[value] = round;
+    }
+
+    /**
+     * Check whether a value is marked
+     * @param value: non negative gene value
+     * @return: true if the value has been marked since the last clear
+     */
+    boolean isMarked(int value) {
+        return value < stamps.length && stamps[value] == round;
+    }
+}
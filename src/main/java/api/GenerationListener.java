@@ -0,0 +1,14 @@
+package api;
+
+/**
+ * Receives the metrics of sampled generations.
+ * Listeners are called on a background thread, a slow listener makes the engine drop samples rather than wait
+ */
+public interface GenerationListener {
+
+    /**
+     * Called after a sampled generation
+     * @param stats: metrics of the generation
+     */
+    void onGeneration(GenerationStats stats);
+}
@@ -0,0 +1,144 @@
+package api;
+
+/**
+ * Metrics of the population after a sampled generation.
+ * Stage times and evaluation counts cover all generations since the previous sample
+ */
+public class GenerationStats {
+
+    private final int generation;
+    private final double bestFitness;
+    private final double meanFitness;
+    private final double worstFitness;
+    private final double diversity;
+    private final long evaluations;
+    private final double evaluationsPerSecond;
+    private final long selectionNanos;
+    private final long crossOverNanos;
+    private final long mutationNanos;
+    private final long evaluationNanos;
+    private final long sortNanos;
+
+    /**
+     * Constructor
+     * @param generation: generation number
+     * @param bestFitness: best fitness of the population
+     * @param meanFitness: mean fitness of the population
+     * @param worstFitness: worst fitness of the population
+     * @param diversity: estimated mean fraction of differing genes between two chromosomes
+     * @param evaluations: number of fitness calculations since the previous sample
+     * @param evaluationsPerSecond: fitness calculations per second since the previous sample
+     * @param stageNanos: time spent in selection, crossover, mutation, evaluation and sort since the previous sample
+     */
+    GenerationStats(int generation, double bestFitness, double meanFitness, double worstFitness, double diversity,
+                    long evaluations, double evaluationsPerSecond, long[] stageNanos) {
+        this.generation = generation;
+        this.bestFitness = bestFitness;
+        this.meanFitness = meanFitness;
+        this.worstFitness = worstFitness;
+        this.diversity = diversity;
+        this.evaluations = evaluations;
+        this.evaluationsPerSecond = evaluationsPerSecond;
+        this.selectionNanos = stageNanos[ListenerDispatcher.SELECTION];
+        this.crossOverNanos = stageNanos[ListenerDispatcher.CROSSOVER];
+        this.mutationNanos = stageNanos[ListenerDispatcher.MUTATION];
+        this.evaluationNanos = stageNanos[ListenerDispatcher.EVALUATION];
+        this.sortNanos = stageNanos[ListenerDispatcher.SORT];
+    }
+
+    /**
+     * getter
+     * @return generation
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * getter
+     * @return bestFitness
+     */
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * getter
+     * @return meanFitness
+     */
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    /**
+     * getter
+     * @return worstFitness
+     */
+    public double getWorstFitness() {
+        return worstFitness;
+    }
+
+    /**
+     * getter
+     * @return diversity, between 0 (identical chromosomes) and 1
+     */
+    public double getDiversity() {
+        return diversity;
+    }
+
+    /**
+     * getter
+     * @return evaluations
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * getter
+     * @return evaluationsPerSecond
+     */
+    public double getEvaluationsPerSecond() {
+        return evaluationsPerSecond;
+    }
+
+    /**
+     * getter
+     * @return selectionNanos
+     */
+    public long getSelectionNanos() {
+        return selectionNanos;
+    }
+
+    /**
+     * getter
+     * @return crossOverNanos
+     */
+    public long getCrossOverNanos() {
+        return crossOverNanos;
+    }
+
+    /**
+     * getter
+     * @return mutationNanos
+     */
+    public long getMutationNanos() {
+        return mutationNanos;
+    }
+
+    /**
+     * getter
+     * @return evaluationNanos
+     */
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    /**
+     * getter
+     * @return sortNanos
+     */
+    public long getSortNanos() {
+        return sortNanos;
+    }
+}
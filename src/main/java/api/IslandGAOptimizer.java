@@ -0,0 +1,240 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import util.RandomStreams;
+
+/**
+ * Island model genetic optimizer
+ * Run several independent populations, one per thread, and periodically exchange their best chromosomes
+ */
+public class IslandGAOptimizer {
+
+    /**
+     * Migration topology
+     */
+    public static enum Topology {
+        RING,
+        FULLY_CONNECTED,
+    }
+
+    /**
+     * Chromosomes sent by one island after a migration epoch
+     */
+    private static class Migration {
+        final int source;
+        final int epoch;
+        final Chromosome[] chromosomes;
+
+        Migration(int source, int epoch, Chromosome[] chromosomes) {
+            this.source = source;
+            this.epoch = epoch;
+            this.chromosomes = chromosomes;
+        }
+    }
+
+    private GAOptimizer[] islands;
+    private int migrationInterval;
+    private int migrationSize;
+    private Topology topology;
+    private List<Queue<Migration>> inboxes;
+    private volatile boolean failed;
+    private volatile Throwable failure;
+
+    /**
+     * Constructor
+     * @param islands: optimizers, each one evolves its own population
+     * @param migrationInterval: number of generations between two migrations
+     * @param migrationSize: number of best chromosomes sent by an island at each migration
+     * @param topology: topology of migration
+     */
+    public IslandGAOptimizer(List<GAOptimizer> islands, int migrationInterval, int migrationSize, Topology topology) {
+        this.islands = islands.toArray(new GAOptimizer[0]);
+        this.migrationInterval = migrationInterval;
+        this.migrationSize = migrationSize;
+        this.topology = topology;
+
+        this.inboxes = new ArrayList<>();
+        for(int i = 0; i < this.islands.length; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Give each island its own random stream, so that a run can be replayed from the master seed.
+     * Migration is integrated in a fixed order, so the result does not depend on thread scheduling
+     * @param streams: random streams, island i uses stream i
+     */
+    public void setRandomStreams(RandomStreams streams) {
+        for(int i = 0; i < islands.length; i++) {
+            islands[i].setRandom(streams.forWorker(i));
+        }
+    }
+
+    /**
+     * Get the islands of the engine
+     * @return: islands
+     */
+    public GAOptimizer[] getIslands() {
+        return islands;
+    }
+
+    /**
+     * Get the best chromosome over all islands
+     * @return: best chromosome
+     */
+    public Chromosome getBest() {
+        Chromosome best = null;
+        for(GAOptimizer island : islands) {
+            Chromosome c = island.getPopulations()[0];
+            if(best == null || c.getFitness() > best.getFitness()) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the islands which receive chromosomes from an island
+     * @param source: index of the sending island
+     * @return: indexes of the receiving islands
+     */
+    private int[] getTargets(int source) {
+        int n = islands.length;
+        if(topology == Topology.RING) {
+            return new int[] {(source + 1) % n};
+        }
+
+        int[] targets = new int[n - 1];
+        for(int i = 1; i < n; i++) {
+            targets[i - 1] = (source + i) % n;
+        }
+        return targets;
+    }
+
+    /**
+     * Send the best chromosomes of an island to its neighbours, then integrate the chromosomes received for the same epoch.
+     * Received chromosomes are integrated in the order of their source island, so that a run does not depend on thread timing
+     * @param index: index of the island
+     * @param epoch: migration epoch
+     * @param pending: migrations already received by the island for later epochs
+     */
+    private void migrate(int index, int epoch, List<Migration> pending) {
+        // one copy of the best chromosomes is shared by all targets, a population never modifies its chromosomes in place
+        Chromosome[] emigrants = islands[index].getEmigrants(migrationSize);
+        for(int target : getTargets(index)) {
+            inboxes.get(target).offer(new Migration(index, epoch, emigrants));
+        }
+
+        int expected = topology == Topology.RING? 1 : islands.length - 1;
+        Migration[] received = new Migration[islands.length];
+        int count = 0;
+
+        for(int i = pending.size() - 1; i >= 0; i--) {
+            if(pending.get(i).epoch == epoch) {
+                received[pending.get(i).source] = pending.remove(i);
+                count++;
+            }
+        }
+
+        Queue<Migration> inbox = inboxes.get(index);
+        while(count < expected) {
+            Migration m = inbox.poll();
+            if(m == null) {
+                if(failed) throw new IllegalStateException("Another island stopped unexpectedly");
+                // parkNanos returns at once for an interrupted thread, so the run would never stop
+                if(Thread.currentThread().isInterrupted()) throw new IllegalStateException("Island interrupted");
+                LockSupport.parkNanos(10000);
+            }else if(m.epoch == epoch) {
+                received[m.source] = m;
+                count++;
+            }else {
+                pending.add(m);
+            }
+        }
+
+        List<Chromosome> immigrants = new ArrayList<>();
+        for(Migration m : received) {
+            if(m != null) {
+                for(Chromosome c : m.chromosomes) immigrants.add(c);
+            }
+        }
+        islands[index].acceptImmigrants(immigrants.toArray(new Chromosome[0]));
+    }
+
+    /**
+     * Evolve one island
+     * @param index: index of the island
+     * @param numStep: number of generations to run
+     */
+    private void runIsland(int index, int numStep) {
+        List<Migration> pending = new ArrayList<>();
+        int epoch = 0;
+        int remaining = numStep;
+
+        while(remaining > 0) {
+            int steps = Math.min(migrationInterval, remaining);
+            islands[index].run(steps);
+            remaining -= steps;
+
+            if(remaining > 0 && islands.length > 1) {
+                migrate(index, epoch, pending);
+            }
+            epoch++;
+        }
+    }
+
+    /**
+     * Run the engine
+     * @param numStep: number of generations to run on each island
+     */
+    public void run(int numStep) {
+        failed = false;
+        failure = null;
+        for(Queue<Migration> inbox : inboxes) inbox.clear();
+
+        ExecutorService executor = Executors.newFixedThreadPool(islands.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < islands.length; i++) {
+                final int index = i;
+                futures.add(executor.submit(() -> {
+                    try {
+                        runIsland(index, numStep);
+                    }catch(RuntimeException | Error e) {
+                        // keep the root cause, the other islands then stop with a secondary exception
+                        synchronized(this) {
+                            if(!failed) {
+                                failure = e;
+                                failed = true;
+                            }
+                        }
+                        throw e;
+                    }
+                }));
+            }
+
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }catch(InterruptedException e) {
+            // release the islands waiting for a neighbour
+            failed = true;
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Island optimizer interrupted", e);
+        }catch(ExecutionException e) {
+            Throwable cause = failure != null? failure : e.getCause();
+            throw new RuntimeException("Island optimizer failed", cause);
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package api;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collect generation metrics of an engine and deliver sampled ones to listeners on a background thread.
+ * Delivery never blocks the engine: when the queue of pending samples is full, the oldest one is dropped
+ */
+final class ListenerDispatcher {
+
+    static final int SELECTION = 0;
+    static final int CROSSOVER = 1;
+    static final int MUTATION = 2;
+    static final int EVALUATION = 3;
+    static final int SORT = 4;
+
+    private static final int QUEUE_SIZE = 1024;
+
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+    private int sampleRate = 1;
+    private ThreadPoolExecutor executor;
+
+    private final long[] stageNanos = new long[5];
+    private long evaluations = 0;
+    private long lastSampleTime = System.nanoTime();
+
+    /**
+     * Add a listener
+     * @param listener
+     */
+    void addListener(GenerationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener
+     * @param listener
+     */
+    void removeListener(GenerationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Set the sampling rate
+     * @param sampleRate: listeners are called every sampleRate generations
+     */
+    void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Check whether a generation has to be published
+     * @param generation: generation number
+     */
+    boolean isSampled(int generation) {
+        return !listeners.isEmpty() && generation % sampleRate == 0;
+    }
+
+    /**
+     * Record time spent in a stage
+     * @param stage: stage index
+     * @param nanos: elapsed time
+     */
+    void addStageTime(int stage, long nanos) {
+        stageNanos[stage] += nanos;
+    }
+
+    /**
+     * Record fitness calculations
+     * @param count: number of calculations
+     */
+    void addEvaluations(long count) {
+        evaluations += count;
+    }
+
+    /**
+     * Publish the metrics of a generation to the listeners and reset the accumulated counters
+     */
+    void publish(int generation, double bestFitness, double meanFitness, double worstFitness, double diversity) {
+        long now = System.nanoTime();
+        double seconds = (now - lastSampleTime) / 1e9;
+        GenerationStats stats = new GenerationStats(generation, bestFitness, meanFitness, worstFitness, diversity,
+                                        evaluations, seconds > 0? evaluations / seconds : 0, stageNanos);
+
+        evaluations = 0;
+        lastSampleTime = now;
+        for(int i = 0; i < stageNanos.length; i++) stageNanos[i] = 0;
+
+        getExecutor().execute(() -> {
+            for(GenerationListener listener : listeners) {
+                listener.onGeneration(stats);
+            }
+        });
+    }
+
+    /**
+     * Get the delivery thread, created on first use. The thread stops when idle
+     */
+    private ThreadPoolExecutor getExecutor() {
+        if(executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+                Thread thread = new Thread(r, "ga-listener");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Estimate the diversity of a population as the mean fraction of differing genes,
+     * over pairs of chromosomes half a population apart
+     * @param genes: genes of the population
+     * @param n: number of chromosomes
+     * @param length: number of genes of a chromosome
+     * @return: diversity between 0 and 1
+     */
+    static double estimateDiversity(GeneSource genes, int n, int length) {
+        if(n < 2 || length == 0) return 0;
+
+        int nPair = Math.min(32, n);
+        long different = 0;
+        for(int p = 0; p < nPair; p++) {
+            int a = p * n / nPair;
+            int b = (a + n / 2) % n;
+            for(int g = 0; g < length; g++) {
+                if(genes.get(a, g) != genes.get(b, g)) different++;
+            }
+        }
+        return (double) different / ((long) nPair * length);
+    }
+
+    /**
+     * Access to the genes of a population
+     */
+    interface GeneSource {
+        int get(int chromosome, int gene);
+    }
+}
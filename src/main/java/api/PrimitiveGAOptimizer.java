@@ -0,0 +1,651 @@
+package api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+
+/**
+ * Genetic optimizer engine storing the population in primitive arrays.
+ * The encoded values of the population are kept in two flat buffers of popSize x genomeLength genes:
+ * children are written directly into the back buffer, which then becomes the current population.
+ * No object is created per chromosome or per generation
+ */
+public class PrimitiveGAOptimizer {
+
+    protected int popSize;
+    protected int genomeLength;
+    protected int[] genes;
+    protected int[] nextGenes;
+    protected double[] fitness;
+    protected double[] nextFitness;
+    protected int[] rank;
+    protected FitnessFunction fitnessFunction;
+
+    protected double chromosomeMutationRate;
+    protected int eliteSize;
+    protected int crossOverPoolSize;
+    protected SelectionType selectionType;
+    protected CrossOverType crossOverType;
+    protected MutationType mutationType;
+    protected Random rand = new Random();
+    protected int generation = 0;
+    protected boolean checkUnique;
+    protected Map<String, Object> extraParams;
+    protected ForkJoinPool evaluationPool;
+
+    private boolean ranked = false;
+    private int[] rows;
+    private int[] parents;
+    private int[] preselected;
+    private int[] childBuffer;
+    private GeneMarker marker = new GeneMarker();
+    private CumulativeSelector selector = new CumulativeSelector();
+    private ListenerDispatcher dispatcher = new ListenerDispatcher();
+
+    /**
+     * Constructor
+     * @param initialPopulation: encoded values of the initial population, all of the same length
+     * @param fitnessFunction: fitness of an encoded value
+     * @param eliteSize: number of chromosome kept to the next generation
+     * @param crossOverPoolSize: size of the mating pool
+     * @param mutationRate: rate of mutation
+     * @param selectionType: type of selection
+     * @param crossOverType: type of crossover
+     * @param checkUnique: whether the elements of a combination need to be unique
+     * @param params: extra parameter for each cross-over/muation/selection type
+     */
+    public PrimitiveGAOptimizer(List<int[]> initialPopulation, FitnessFunction fitnessFunction,
+                        int eliteSize, int crossOverPoolSize, double mutationRate,
+                        SelectionType selectionType, CrossOverType crossOverType, MutationType mutationType,
+                        boolean checkUnique, Map<String, Object> params) {
+
+        this.popSize = initialPopulation.size();
+        this.genomeLength = initialPopulation.get(0).length;
+        this.genes = new int[popSize * genomeLength];
+        this.nextGenes = new int[popSize * genomeLength];
+        this.fitness = new double[popSize];
+        this.nextFitness = new double[popSize];
+        this.rank = new int[popSize];
+        this.rows = new int[popSize];
+
+        for(int i = 0; i < popSize; i++) {
+            System.arraycopy(initialPopulation.get(i), 0, genes, i * genomeLength, genomeLength);
+            rank[i] = i;
+            rows[i] = i;
+        }
+
+        this.fitnessFunction = fitnessFunction;
+        this.eliteSize = eliteSize;
+        this.crossOverPoolSize = crossOverPoolSize;
+        this.chromosomeMutationRate = mutationRate;
+        this.selectionType = selectionType;
+        this.crossOverType = crossOverType;
+        this.mutationType = mutationType;
+        this.checkUnique = checkUnique;
+        this.extraParams = params;
+
+        this.parents = new int[crossOverPoolSize];
+        this.preselected = new int[popSize];
+        this.childBuffer = new int[genomeLength];
+    }
+
+    /**
+     * Constructor
+     * @param initialPopulation: encoded values of the initial population, all of the same length
+     * @param fitnessFunction: fitness of an encoded value
+     * @param eliteSize: number of chromosome kept to the next generation
+     * @param crossOverPoolSize: size of the mating pool
+     * @param mutationRate: rate of mutation
+     * @param selectionType: type of selection
+     * @param crossOverType: type of crossover
+     * @param checkUnique: whether the elements of a combination need to be unique
+     */
+    public PrimitiveGAOptimizer(List<int[]> initialPopulation, FitnessFunction fitnessFunction,
+                        int eliteSize, int crossOverPoolSize, double mutationRate,
+                        SelectionType selectionType, CrossOverType crossOverType, MutationType mutationType,
+                        boolean checkUnique) {
+        this(initialPopulation, fitnessFunction, eliteSize, crossOverPoolSize, mutationRate,
+                selectionType, crossOverType, mutationType, checkUnique, new HashMap<>());
+    }
+
+    /**
+     * Set the pool used to evaluate the children of each generation
+     * @param evaluationPool: pool for parallel fitness evaluation, null to evaluate on the calling thread
+     */
+    public void setEvaluationPool(ForkJoinPool evaluationPool) {
+        this.evaluationPool = evaluationPool;
+    }
+
+    /**
+     * Set the random generator of the engine, for example a stream of util.RandomStreams to make a run reproducible
+     * @param rand: random generator, used by the engine thread only
+     */
+    public void setRandom(Random rand) {
+        this.rand = rand;
+    }
+
+    /**
+     * Add a listener receiving the metrics of sampled generations
+     * @param listener: listener, called on a background thread
+     */
+    public void addGenerationListener(GenerationListener listener) {
+        dispatcher.addListener(listener);
+    }
+
+    /**
+     * Remove a listener
+     * @param listener: listener
+     */
+    public void removeGenerationListener(GenerationListener listener) {
+        dispatcher.removeListener(listener);
+    }
+
+    /**
+     * Set how often listeners are called
+     * @param sampleRate: listeners are called every sampleRate generations
+     */
+    public void setListenerSampleRate(int sampleRate) {
+        dispatcher.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Get the size of the population
+     * @return: number of chromosomes
+     */
+    public int getPopulationSize() {
+        return popSize;
+    }
+
+    /**
+     * Get a copy of the encoded value of a chromosome
+     * @param position: position of the chromosome in the population.
+     *                  The elite positions are sorted by decreasing fitness, the others are in no particular order
+     * @return: encoded value
+     */
+    public int[] getEncoded(int position) {
+        int offset = rank[position] * genomeLength;
+        return Arrays.copyOfRange(genes, offset, offset + genomeLength);
+    }
+
+    /**
+     * Get the fitness of a chromosome
+     * @param position: position of the chromosome in the population.
+     *                  The elite positions are sorted by decreasing fitness, the others are in no particular order
+     * @return: fitness
+     */
+    public double getFitness(int position) {
+        return fitness[rank[position]];
+    }
+
+    /**
+     * Perform selection for mating, the mating pool is written to parents
+     */
+    protected void selectParents() {
+        if(selectionType == SelectionType.ROULETTE) {
+            rouletteSelectParents(rows, popSize, parents, crossOverPoolSize);
+            return;
+        }
+
+        if(selectionType == SelectionType.TOURNAMENT) {
+            double tournamentThresh = (Double) extraParams.get("tournamentThresh");
+            tournamentSelectParents(parents, crossOverPoolSize, tournamentThresh);
+            return;
+        }
+
+        if(selectionType == SelectionType.REFINED) {
+            double tournamentThresh = (Double) extraParams.get("tournamentThresh");
+            int nPreselected = (int) (crossOverPoolSize*1.5);
+            if(nPreselected > popSize) nPreselected = popSize;
+            tournamentSelectParents(preselected, nPreselected, tournamentThresh);
+            rouletteSelectParents(preselected, nPreselected, parents, crossOverPoolSize);
+            return;
+        }
+
+        if(selectionType == SelectionType.RANK) {
+            selector.reset(popSize);
+            for(int k = 0; k < popSize; k++) selector.add(popSize - k);
+            for(int n = 0; n < crossOverPoolSize; n++) {
+                parents[n] = rank[selector.draw(rand)];
+            }
+            return;
+        }
+
+        throw new RuntimeException("Unsupported selection type: " + selectionType);
+    }
+
+    /**
+     * Perform roulette selection
+     * @param pool: rows of the population to select from
+     * @param poolSize: number of rows in the pool
+     * @param selected: output array of selected rows
+     * @param nSelected: the size of mating pool
+     */
+    private void rouletteSelectParents(int[] pool, int poolSize, int[] selected, int nSelected) {
+        selector.reset(poolSize);
+        for(int k = 0; k < poolSize; k++) selector.add(fitness[pool[k]]);
+
+        for(int n = 0; n < nSelected; n++) {
+            selected[n] = pool[selector.draw(rand)];
+        }
+    }
+
+    /**
+     * Perform tournament selection
+     * @param selected: output array of selected rows
+     * @param nSelected: the size of mating pool
+     * @param tournamentThresh: probability that the better chromosome wins
+     */
+    private void tournamentSelectParents(int[] selected, int nSelected, double tournamentThresh) {
+        for(int n = 0; n < nSelected; n++) {
+            int index1 = (int) (rand.nextDouble() * popSize);
+            int index2 = (int) (rand.nextDouble() * popSize - 1);
+            index2 = (index1 + index2 + 1) % popSize;
+            double r = rand.nextDouble();
+
+            if(r < tournamentThresh) {
+                selected[n] = fitness[index1] < fitness[index2]? index2 : index1;
+            }else {
+                selected[n] = fitness[index1] > fitness[index2]? index2 : index1;
+            }
+        }
+    }
+
+    /**
+     * Perform uniform crossover without ensuring uniquity for elements in children encoded value
+     */
+    private void uniformCrossOverUnchecked(int[] a, int aOff, int[] b, int bOff, int[] out, int outOff) {
+        for(int i = 0; i < genomeLength; i++) {
+            out[outOff + i] = rand.nextBoolean()? a[aOff + i] : b[bOff + i];
+        }
+    }
+
+    /**
+     * Perform uniform crossover with ensuring uniquity for elements in children encoded value.
+     * Genes not inherited from the first parent are filled with the unused genes of the second parent, in their order
+     */
+    private void uniformCrossOverChecked(int[] a, int aOff, int[] b, int bOff, int[] out, int outOff) {
+        marker.clear();
+        for(int i = 0; i < genomeLength; i++) {
+            if(rand.nextBoolean()) {
+                out[outOff + i] = a[aOff + i];
+                marker.mark(a[aOff + i]);
+            }else {
+                out[outOff + i] = -1;
+            }
+        }
+        fillFrom(b, bOff, out, outOff, 0);
+    }
+
+    /**
+     * Perform onepoint crossover without ensuring uniquity for elements in children encoded value
+     */
+    private void onePointCrossOverUnchecked(int[] a, int aOff, int[] b, int bOff, int[] out, int outOff) {
+        int p = (int) (rand.nextDouble() * genomeLength);        // cross over point
+        System.arraycopy(a, aOff, out, outOff, p);
+        System.arraycopy(b, bOff + p, out, outOff + p, genomeLength - p);
+    }
+
+    /**
+     * Perform onepoint crossover with ensuring uniquity for elements in children encoded value
+     */
+    private void onePointCrossOverChecked(int[] a, int aOff, int[] b, int bOff, int[] out, int outOff) {
+        int p = (int) (rand.nextDouble() * genomeLength);        // cross over point
+        marker.clear();
+        for(int i = 0; i < p; i++) {
+            out[outOff + i] = a[aOff + i];
+            marker.mark(a[aOff + i]);
+        }
+        for(int i = p; i < genomeLength; i++) {
+            out[outOff + i] = -1;
+        }
+        fillFrom(b, bOff, out, outOff, p);
+    }
+
+    /**
+     * Perform uni-three-parent crossover without ensuring uniquity for elements in children encoded value
+     */
+    private void uniThreeParentCrossOverUnchecked(int[] a, int aOff, int[] b, int bOff, int[] c, int cOff, int[] out, int outOff) {
+        for(int i = 0; i < genomeLength; i++) {
+            out[outOff + i] = a[aOff + i] == b[bOff + i]? a[aOff + i] : c[cOff + i];
+        }
+    }
+
+    /**
+     * Perform uni-three-parent crossover with ensuring uniquity for elements in children encoded value
+     */
+    private void uniThreeParentCrossOverChecked(int[] a, int aOff, int[] b, int bOff, int[] c, int cOff, int[] out, int outOff) {
+        marker.clear();
+        for(int i = 0; i < genomeLength; i++) {
+            if(a[aOff + i] == b[bOff + i]) {
+                out[outOff + i] = a[aOff + i];
+                marker.mark(a[aOff + i]);
+            }else {
+                out[outOff + i] = -1;
+            }
+        }
+        fillFrom(c, cOff, out, outOff, 0);
+    }
+
+    /**
+     * Fill the empty genes of a child with the unmarked genes of a parent, in the parent's order
+     * @param src: array containing the parent
+     * @param srcOff: offset of the parent
+     * @param out: array containing the child
+     * @param outOff: offset of the child
+     * @param from: first gene of the child which may be empty
+     */
+    private void fillFrom(int[] src, int srcOff, int[] out, int outOff, int from) {
+        int k = srcOff;
+        for(int i = from; i < genomeLength; i++) {
+            if(out[outOff + i] < 0) {
+                while(marker.isMarked(src[k])) k++;
+                out[outOff + i] = src[k++];
+            }
+        }
+    }
+
+    /**
+     * Get number of parent for crossover stage
+     * @return: number of parent
+     **/
+    private int getNumberOfParents() {
+        if(crossOverType == CrossOverType.UNI_THREE_PARENT || crossOverType == CrossOverType.UNI_ONE_POINT) {
+            return 3;
+        }
+        else return 2;
+    }
+
+    /**
+     * Perform crossover, the child is written to the back buffer
+     * @param p1: row of the first parent
+     * @param p2: row of the second parent
+     * @param p3: row of the third parent, ignored for two-parent crossovers
+     * @param child: row of the child in the back buffer
+     */
+    protected void crossOver(int p1, int p2, int p3, int child) {
+        int L = genomeLength;
+        int outOff = child * L;
+
+        if(crossOverType == CrossOverType.UNIFORM) {
+            if(checkUnique) uniformCrossOverChecked(genes, p1 * L, genes, p2 * L, nextGenes, outOff);
+            else uniformCrossOverUnchecked(genes, p1 * L, genes, p2 * L, nextGenes, outOff);
+            return;
+        }
+
+        if(crossOverType == CrossOverType.ONE_POINT) {
+            if(checkUnique) onePointCrossOverChecked(genes, p1 * L, genes, p2 * L, nextGenes, outOff);
+            else onePointCrossOverUnchecked(genes, p1 * L, genes, p2 * L, nextGenes, outOff);
+            return;
+        }
+
+        if(crossOverType == CrossOverType.UNI_THREE_PARENT) {
+            if(checkUnique) uniThreeParentCrossOverChecked(genes, p1 * L, genes, p2 * L, genes, p3 * L, nextGenes, outOff);
+            else uniThreeParentCrossOverUnchecked(genes, p1 * L, genes, p2 * L, genes, p3 * L, nextGenes, outOff);
+            return;
+        }
+
+        if(crossOverType == CrossOverType.UNI_ONE_POINT) {
+            if(checkUnique) {
+                uniformCrossOverChecked(genes, p1 * L, genes, p2 * L, childBuffer, 0);
+                onePointCrossOverChecked(childBuffer, 0, genes, p3 * L, nextGenes, outOff);
+            }else {
+                uniformCrossOverUnchecked(genes, p1 * L, genes, p2 * L, childBuffer, 0);
+                onePointCrossOverUnchecked(childBuffer, 0, genes, p3 * L, nextGenes, outOff);
+            }
+            return;
+        }
+
+        throw new RuntimeException("Unsupported crossover type: " + crossOverType);
+    }
+
+    /**
+     * Perform mutation on a child of the back buffer
+     * @param child: row of the child
+     */
+    protected void mutateChromosome(int child) {
+        int offset = child * genomeLength;
+
+        if(mutationType == MutationType.SWITCH_POINT) {
+            int i = (int)(genomeLength*rand.nextDouble());
+            int j = (int)((genomeLength-1) * rand.nextDouble());
+            j = (i + j + 1) % genomeLength;
+            int tmp = nextGenes[offset + i];
+            nextGenes[offset + i] = nextGenes[offset + j];
+            nextGenes[offset + j] = tmp;
+            return;
+        }
+
+        if(mutationType == MutationType.MUTATE_POINT) {
+            int N = (Integer) extraParams.getOrDefault("maxIndex", genomeLength);
+            int i = (int)(rand.nextDouble() * genomeLength);
+            int index = (int)(rand.nextDouble() * N);
+
+            if(checkUnique) {
+                for(int k = 0; k < genomeLength; k++) {
+                    if(nextGenes[offset + k] == index) {
+                        nextGenes[offset + k] = nextGenes[offset + i];
+                        break;
+                    }
+                }
+            }
+            nextGenes[offset + i] = index;
+            return;
+        }
+
+        throw new RuntimeException("Unsupported mutation type: " + mutationType);
+    }
+
+    /**
+     * Calculate the fitness of a range of rows
+     * @param g: genes buffer
+     * @param f: fitness buffer
+     * @param from: first row (inclusive)
+     * @param to: last row (exclusive)
+     */
+    protected void evaluate(int[] g, double[] f, int from, int to) {
+        if(evaluationPool == null) {
+            for(int i = from; i < to; i++) {
+                f[i] = fitnessFunction.calcFitness(g, i * genomeLength, genomeLength);
+            }
+            return;
+        }
+
+        evaluationPool.submit(() -> IntStream.range(from, to).parallel()
+                .forEach(i -> f[i] = fitnessFunction.calcFitness(g, i * genomeLength, genomeLength))).join();
+    }
+
+    /**
+     * Publish the metrics of the generation to the listeners if it is sampled
+     */
+    private void publishStats() {
+        if(!dispatcher.isSampled(generation)) return;
+
+        double best = Double.NEGATIVE_INFINITY, worst = Double.POSITIVE_INFINITY, total = 0;
+        for(int i = 0; i < popSize; i++) {
+            best = Math.max(best, fitness[i]);
+            worst = Math.min(worst, fitness[i]);
+            total += fitness[i];
+        }
+
+        double diversity = ListenerDispatcher.estimateDiversity((i, g) -> genes[i * genomeLength + g], popSize, genomeLength);
+        dispatcher.publish(generation, best, total / popSize, worst, diversity);
+    }
+
+    /**
+     * Create new generation
+     */
+    private void nextGeneration() {
+        long t0 = System.nanoTime();
+        selectParents();
+        long t1 = System.nanoTime();
+
+        int L = genomeLength;
+        for(int i = 0; i < eliteSize; i++) {
+            System.arraycopy(genes, rank[i] * L, nextGenes, i * L, L);
+            nextFitness[i] = fitness[rank[i]];
+        }
+
+        for(int i = eliteSize; i < popSize; i++) {
+            int parent1 = parents[(int)(rand.nextDouble() * crossOverPoolSize)];
+
+            int parent2;
+            do {
+                parent2 = parents[(int)(rand.nextDouble() * crossOverPoolSize)];
+            }while(parent2 == parent1);
+
+            int parent3 = -1;
+            if(getNumberOfParents() == 3) {
+                do {
+                    parent3 = parents[(int)(rand.nextDouble() * crossOverPoolSize)];
+                }while(parent3 == parent1 || parent3 == parent2);
+            }
+
+            crossOver(parent1, parent2, parent3, i);
+        }
+        long t2 = System.nanoTime();
+
+        for(int i = eliteSize; i < popSize; i++) {
+            if(rand.nextDouble() < chromosomeMutationRate) {
+                mutateChromosome(i);
+            }
+        }
+
+        long t3 = System.nanoTime();
+
+        evaluate(nextGenes, nextFitness, eliteSize, popSize);
+        long t4 = System.nanoTime();
+
+        swapBuffers();
+        rankPopulation();
+        long t5 = System.nanoTime();
+
+        dispatcher.addStageTime(ListenerDispatcher.SELECTION, t1 - t0);
+        dispatcher.addStageTime(ListenerDispatcher.CROSSOVER, t2 - t1);
+        dispatcher.addStageTime(ListenerDispatcher.MUTATION, t3 - t2);
+        dispatcher.addStageTime(ListenerDispatcher.EVALUATION, t4 - t3);
+        dispatcher.addStageTime(ListenerDispatcher.SORT, t5 - t4);
+        dispatcher.addEvaluations(popSize - eliteSize);
+        generation += 1;
+    }
+
+    /**
+     * Make the back buffers the current population
+     */
+    private void swapBuffers() {
+        int[] tmpGenes = genes;
+        genes = nextGenes;
+        nextGenes = tmpGenes;
+
+        double[] tmpFitness = fitness;
+        fitness = nextFitness;
+        nextFitness = tmpFitness;
+    }
+
+    /**
+     * Replace the non-elite population by new random chromosomes
+     * @param factory: creates a random chromosome, only its encoded value is kept
+     */
+    private void restart(Function<Random, Chromosome> factory) {
+        int L = genomeLength;
+        for(int i = 0; i < eliteSize; i++) {
+            System.arraycopy(genes, rank[i] * L, nextGenes, i * L, L);
+            nextFitness[i] = fitness[rank[i]];
+        }
+        for(int i = eliteSize; i < popSize; i++) {
+            System.arraycopy(factory.apply(rand).encoded, 0, nextGenes, i * L, L);
+        }
+
+        evaluate(nextGenes, nextFitness, eliteSize, popSize);
+        swapBuffers();
+        rankPopulation();
+    }
+
+    /**
+     * Rank the rows of the current population. Only the elite rows are sorted by decreasing fitness,
+     * they are moved to the front by quickselect; rank selection needs the full order
+     */
+    private void rankPopulation() {
+        for(int i = 0; i < popSize; i++) rank[i] = i;
+
+        if(selectionType == SelectionType.RANK) {
+            FitnessSort.sortDescending(fitness, rank, 0, popSize);
+            return;
+        }
+
+        int nSorted = Math.min(Math.max(eliteSize, 1), popSize);
+        FitnessSort.selectTop(fitness, rank, 0, popSize, nSorted);
+        FitnessSort.sortDescending(fitness, rank, 0, nSorted);
+    }
+
+    /**
+     * Run the engine
+     * @param numStep: number of step to run
+     */
+    public void run(int numStep) {
+        run(numStep, new TerminationCriteria());
+    }
+
+    /**
+     * Run the engine until the number of step is reached or a stopping criterion is met, like GAOptimizer.run
+     * @param numStep: maximum number of step to run
+     * @param criteria: stopping criteria and restart policy
+     * @return: number of step actually run
+     */
+    public int run(int numStep, TerminationCriteria criteria) {
+        long start = System.nanoTime();
+
+        if(!ranked) {
+            evaluate(genes, fitness, 0, popSize);
+            rankPopulation();
+            ranked = true;
+        }
+
+        double bestFitness = getFitness(0);
+        int stagnant = 0, stagnantSinceRestart = 0;
+        int step = 0;
+
+        while(step < numStep && bestFitness < criteria.targetFitness) {
+            if(criteria.timeBudgetMillis > 0 && System.nanoTime() - start >= criteria.timeBudgetMillis * 1000000) {
+                break;
+            }
+            if(criteria.cancellationToken != null && criteria.cancellationToken.isCancelled()) {
+                break;
+            }
+
+            nextGeneration();
+            publishStats();
+            step++;
+
+            double fitness = getFitness(0);
+            if(fitness > bestFitness) {
+                bestFitness = fitness;
+                stagnant = 0;
+                stagnantSinceRestart = 0;
+            }else {
+                stagnant++;
+                stagnantSinceRestart++;
+            }
+
+            if(criteria.maxStagnantGenerations > 0 && stagnant >= criteria.maxStagnantGenerations) {
+                break;
+            }
+
+            if(criteria.restartStagnantGenerations > 0 && criteria.restartFactory != null
+                    && stagnantSinceRestart >= criteria.restartStagnantGenerations) {
+                restart(criteria.restartFactory);
+                stagnantSinceRestart = 0;
+            }
+        }
+
+        return step;
+    }
+}
@@ -0,0 +1,16 @@
+package api;
+
+/**
+ * Print the best fitness of sampled generations to the standard output
+ */
+public class PrintListener implements GenerationListener {
+
+    /**
+     * Print information of a generation
+     * @param stats: metrics of the generation
+     */
+    @Override
+    public void onGeneration(GenerationStats stats) {
+        System.out.println("Generation " + stats.getGeneration() + ", fitness:" + stats.getBestFitness());
+    }
+}
@@ -0,0 +1,43 @@
+package api;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import util.CancellationToken;
+
+/**
+ * Stopping criteria and restart policy for a run of the genetic optimizer
+ **/
+public class TerminationCriteria {
+
+    /**
+     * Stop as soon as the best fitness reaches this value
+     */
+    public double targetFitness = Double.POSITIVE_INFINITY;
+
+    /**
+     * Stop after this number of generations without improvement of the best fitness, 0 to disable
+     */
+    public int maxStagnantGenerations = 0;
+
+    /**
+     * Stop when this wall-clock time has elapsed, 0 for no limit
+     */
+    public long timeBudgetMillis = 0;
+
+    /**
+     * Polled after each generation to stop the run early, null to never stop early
+     */
+    public CancellationToken cancellationToken;
+
+    /**
+     * Reseed the non-elite population after this number of generations without improvement, 0 to disable
+     */
+    public int restartStagnantGenerations = 0;
+
+    /**
+     * Creates the random chromosomes used to reseed the population, restarts are disabled when null
+     */
+    public Function<Random, Chromosome> restartFactory;
+
+}
@@ -1,8 +1,16 @@
 package app.timetable;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Random;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import app.timetable.model.Class_;
 import app.timetable.model.DataSet;
 import app.timetable.model.Room;
@@ -32,7 +40,17 @@ public class DataGenerator {
      */
     
     public static DataSet generateDataset(int size, boolean hard) {
-        Random rand = new Random();
+        return generateDataset(size, hard, new Random());
+    }
+    
+    /**
+     * Generate a dataset for time table problem
+     * @param size: Number of teacher. Each teacher teaches 4 classes, therefore number of classes is 4xsize
+     * @param hard: true for hard constraint, false for hard constraint
+     * @param rand: random generator, seeded to generate the same dataset again
+     * @return: a dataset which contains: teachers, classes, time slots, rooms
+     */
+    public static DataSet generateDataset(int size, boolean hard, Random rand) {
         Teacher[] teachers = new Teacher[size];
         
         int roomSize = hard? (int)(size*0.4): size;
@@ -61,11 +79,121 @@ public class DataGenerator {
         return new DataSet(teachers, timeSlots, rooms, classes);
     }
     
+    /**
+     * Generate a dataset and write it as json to a file, without holding it in memory
+     * @param attributes: size and shape of the dataset
+     * @param rand: random generator, seeded to generate the same dataset again
+     * @param path: output file
+     */
+    public static void write(GeneratorAttributes attributes, Random rand, Path path) throws IOException {
+        try(OutputStream out = Files.newOutputStream(path)) {
+            write(attributes, rand, out);
+        }
+    }
+    
+    /**
+     * Generate a dataset and write it as json to a stream, without holding it in memory.
+     * The output can be read with DataSet.load, memory use is O(rooms + time slots) whatever the number of classes
+     * @param attributes: size and shape of the dataset
+     * @param rand: random generator, seeded to generate the same dataset again
+     * @param out: output stream, not closed
+     */
+    public static void write(GeneratorAttributes attributes, Random rand, OutputStream out) throws IOException {
+        int nTeacher = attributes.getTeacherCount();
+        int nRoom = attributes.getRoomCount();
+        int nTimeSlot = attributes.nTimeSlot;
+        int nPreferedTimeSlot = Math.min(attributes.preferedTimeSlots, nTimeSlot);
+        int nPreferedRoom = Math.min(attributes.preferedRooms, nRoom);
+        
+        try(JsonGenerator json = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                                  .createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            
+            json.writeArrayFieldStart("rooms");
+            for(int i = 0; i < nRoom; i++) {
+                json.writeStartObject();
+                json.writeStringField("name", "R" + (i+1));
+                json.writeNumberField("capacity", 30 + 10*(int)(3L*i/nRoom));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            
+            // slots of a day are spread between 8:00 and 18:00
+            int slotMinutes = 600 / attributes.slotsPerDay;
+            json.writeArrayFieldStart("timeSlots");
+            for(int s = 0; s < nTimeSlot; s++) {
+                int start = 8*60 + (s % attributes.slotsPerDay) * slotMinutes;
+                int end = start + slotMinutes;
+                json.writeStartObject();
+                json.writeNumberField("startHour", start / 60);
+                json.writeNumberField("startMinute", start % 60);
+                json.writeNumberField("endHour", end / 60);
+                json.writeNumberField("endMinute", end % 60);
+                json.writeNumberField("dayOfWeek", s / attributes.slotsPerDay);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            
+            int[] preferedTimeSlotIds = new int[nPreferedTimeSlot];
+            int[] preferedRoomIds = new int[nPreferedRoom];
+            StringBuilder ids = new StringBuilder();
+            json.writeArrayFieldStart("teachers");
+            for(int i = 0; i < nTeacher; i++) {
+                CombinationUtil.genCombination(nTimeSlot, nPreferedTimeSlot, rand, preferedTimeSlotIds);
+                CombinationUtil.genCombination(nRoom, nPreferedRoom, rand, preferedRoomIds);
+                json.writeStartObject();
+                json.writeNumberField("id", i+1);
+                json.writeStringField("name", "Teacher " + (i+1));
+                json.writeStringField("preferedTimeSlotIds", joinIds(ids, preferedTimeSlotIds));
+                json.writeStringField("preferedRoomIds", joinIds(ids, preferedRoomIds));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            
+            int studentRange = attributes.maxStudents - attributes.minStudents + 1;
+            json.writeArrayFieldStart("classes");
+            for(int index = 0; index < attributes.nClass; index++) {
+                json.writeStartObject();
+                json.writeStringField("name", "C" + (index+1));
+                json.writeNumberField("teacherId", index / attributes.classesPerTeacher + 1);
+                json.writeNumberField("numberOfStudent", attributes.minStudents + rand.nextInt(studentRange));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            
+            json.writeEndObject();
+        }
+    }
+    
+    /**
+     * Join ids with commas, as in the teachers of saved datasets
+     */
+    private static String joinIds(StringBuilder builder, int[] ids) {
+        builder.setLength(0);
+        for(int i = 0; i < ids.length; i++) {
+            if(i > 0) builder.append(',');
+            builder.append(ids[i]);
+        }
+        return builder.toString();
+    }
+    
     /**
      * Program entry point
+     * Without arguments, generate the bundled datasets.
+     * With arguments output number_of_classes [number_of_time_slots [occupancy [seed]]], write a generated dataset to output
      * @throws IOException 
      */
     public static void main(String[] args) throws IOException {        
+        if(args.length >= 2) {
+            GeneratorAttributes attributes = new GeneratorAttributes();
+            attributes.nClass = Integer.parseInt(args[1]);
+            if(args.length > 2) attributes.nTimeSlot = Integer.parseInt(args[2]);
+            if(args.length > 3) attributes.occupancy = Double.parseDouble(args[3]);
+            Random rand = args.length > 4? new Random(Long.parseLong(args[4])) : new Random();
+            write(attributes, rand, Paths.get(args[0]));
+            return;
+        }
+        
         generateDataset(40, false).save("src/main/resources/timetable/soft/160_classes.json");
         generateDataset(50, false).save("src/main/resources/timetable/soft/200_classes.json");
         
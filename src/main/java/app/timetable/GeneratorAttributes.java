@@ -0,0 +1,49 @@
+package app.timetable;
+
+/**
+ * Attribute parameters for generated datasets, see DataGenerator.write
+ **/
+public class GeneratorAttributes {
+
+    // number of classes
+    public int nClass = 10000;
+
+    // number of classes of each teacher, the last teacher may have fewer
+    public int classesPerTeacher = 4;
+
+    // number of time slots, spread over the days of the week
+    public int nTimeSlot = 10;
+
+    // number of time slots in a day
+    public int slotsPerDay = 2;
+
+    // number of rooms, 0 to derive it from occupancy
+    public int nRoom = 0;
+
+    // share of the (room, time slot) indexes taken by the classes when nRoom is 0.
+    // 1.0 is as tight as the bundled hard datasets, 0.4 as loose as the soft ones
+    public double occupancy = 1.0;
+
+    // number of prefered time slots and rooms of each teacher
+    public int preferedTimeSlots = 4;
+    public int preferedRooms = 4;
+
+    // number of students of a class, in [minStudents, maxStudents]
+    public int minStudents = 20;
+    public int maxStudents = 44;
+
+    /**
+     * Get the number of teachers
+     **/
+    public int getTeacherCount() {
+        return (nClass + classesPerTeacher - 1) / classesPerTeacher;
+    }
+
+    /**
+     * Get the number of rooms, derived from occupancy if nRoom is 0
+     **/
+    public int getRoomCount() {
+        if(nRoom > 0) return nRoom;
+        return Math.max(1, (int) Math.ceil(nClass / (occupancy * nTimeSlot)));
+    }
+}
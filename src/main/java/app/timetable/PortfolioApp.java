@@ -0,0 +1,59 @@
+package app.timetable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import app.timetable.ga.GASolver;
+import app.timetable.model.DataSet;
+import app.timetable.pso.PSOSolver;
+import app.timetable.sa.SASolver;
+import app.timetable.tabusearch.TabuSolver;
+import util.RandomStreams;
+
+/**
+ * Solving time table by racing the solvers against each other
+ **/
+public class PortfolioApp {
+    
+    private static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    private static int runIndex = 0;
+    
+    /**
+     * Race all solvers on a dataset for the hard constraint problem
+     */
+    public static void run(String dataSetPath, long timeBudgetMillis) throws IOException {
+        System.out.println("============================" + dataSetPath);
+        DataSet dataSet = new DataSet(dataSetPath);
+        
+        List<TimetableSolver> solvers = Arrays.asList(new GASolver(false), new SASolver(false), new TabuSolver(false), new PSOSolver());
+        
+        SolverBudget budget = new SolverBudget();
+        budget.timeBudgetMillis = timeBudgetMillis;
+        budget.targetScore = dataSet.classes.length;
+        
+        ExecutorService executor = Executors.newFixedThreadPool(solvers.size());
+        try {
+            PortfolioRunner runner = new PortfolioRunner(executor);
+            PortfolioResult portfolio = runner.run(dataSet, solvers, streams.child(runIndex++).getMasterSeed(), budget);
+            for(SolverResult result : portfolio.getResults()) {
+                System.out.println(result);
+            }
+            System.out.println("Best: " + portfolio.getBest());
+        }finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Program entry point
+     * @throws IOException 
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println("Seed: " + streams.getMasterSeed());
+        run("timetable/hard/160_classes.json", 10000);
+        run("timetable/hard/200_classes.json", 10000);
+    }
+}
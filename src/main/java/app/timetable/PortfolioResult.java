@@ -0,0 +1,51 @@
+package app.timetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a PortfolioRunner run
+ */
+public class PortfolioResult {
+
+    private final SolverResult best;
+    private final List<SolverResult> results;
+
+    /**
+     * Constructor
+     * @param best: successful result with the best score, null if none
+     * @param results: results of the solvers which returned or failed, in order of completion
+     */
+    public PortfolioResult(SolverResult best, List<SolverResult> results) {
+        this.best = best;
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+    }
+
+    /**
+     * getter
+     * @return best: successful result with the best score, null if interrupted before any solver returned
+     */
+    public SolverResult getBest() {
+        return best;
+    }
+
+    /**
+     * Get the results of the solvers which returned or failed before the run ended, in order of completion.
+     * Solvers still running when a target or the deadline was reached are not included
+     **/
+    public List<SolverResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the results of the solvers which threw
+     **/
+    public List<SolverResult> getFailures() {
+        List<SolverResult> failures = new ArrayList<>();
+        for(SolverResult result : results) {
+            if(result.isFailed()) failures.add(result);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,131 @@
+package app.timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+import util.RandomStreams;
+
+/**
+ * Runs several solver configurations on the same dataset at the same time and keeps the best result.
+ * Returns as soon as a solver reaches the target score, when all solvers have stopped, or at the end of the time budget
+ * with the best result so far. At the deadline the solvers are stopped through a shared token and get a short grace
+ * period to return the best solution they found, a solver which does not is left out of the results.
+ * The solvers should all use the same score, hard or soft.
+ * A solver which throws is recorded as a failed result and does not stop the others.
+ * A runner holds no state between runs, so it can run several portfolios at the same time
+ */
+public class PortfolioRunner {
+
+    // time given to the solvers to return after the deadline
+    private static final long STOP_GRACE_MILLIS = 100;
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor
+     * @param executor: threads running the solvers, at least one per solver for them to run at the same time
+     */
+    public PortfolioRunner(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run the solvers
+     * @param dataSet
+     * @param solvers: solver configurations
+     * @param seed: master seed, solver i gets the seed of child stream i
+     * @param budget: budget of each solver, the time budget is also the deadline of the portfolio
+     * @return: best result and the results of the solvers which returned or failed
+     */
+    public PortfolioResult run(DataSet dataSet, List<TimetableSolver> solvers, long seed, SolverBudget budget) {
+        return run(dataSet, solvers, seed, budget, null);
+    }
+
+    /**
+     * Run the solvers
+     * @param dataSet
+     * @param solvers: solver configurations
+     * @param seed: master seed, solver i gets the seed of child stream i
+     * @param budget: budget of each solver, the time budget is also the deadline of the portfolio
+     * @param cancellationToken: token of the caller to stop all solvers, may be null
+     * @return: best result and the results of the solvers which returned or failed
+     * @throws RuntimeException: if all solvers failed, caused by the first failure
+     */
+    public PortfolioResult run(DataSet dataSet, List<TimetableSolver> solvers, long seed, SolverBudget budget,
+                               CancellationToken cancellationToken) {
+        dataSet.getIndex();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budget.timeBudgetMillis);
+        boolean stopping = false;
+
+        // the solvers stop when this token is cancelled: by the caller, at the deadline, or when one reaches the target
+        CancellationToken token = budget.tokenFor(cancellationToken);
+        ExecutorCompletionService<SolverResult> completion = new ExecutorCompletionService<>(executor);
+        RandomStreams streams = new RandomStreams(seed);
+        for(int i = 0; i < solvers.size(); i++) {
+            TimetableSolver solver = solvers.get(i);
+            long solverSeed = streams.child(i).getMasterSeed();
+            completion.submit(() -> {
+                try {
+                    return solver.solve(dataSet, solverSeed, budget, token);
+                }catch (RuntimeException e) {
+                    return SolverResult.failed(solver.getName(), e, (System.nanoTime() - start) / 1000000);
+                }
+            });
+        }
+
+        List<SolverResult> results = new ArrayList<>();
+        SolverResult best = null;
+        try {
+            for(int done = 0; done < solvers.size(); done++) {
+                Future<SolverResult> future;
+                if(budget.timeBudgetMillis > 0) {
+                    future = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(future == null && !stopping) {
+                        // do not wait for every solver to notice the deadline, only for the grace period
+                        token.cancel();
+                        stopping = true;
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_GRACE_MILLIS);
+                        future = completion.poll(STOP_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    if(future == null) break;
+                }else {
+                    future = completion.take();
+                }
+                SolverResult result;
+                try {
+                    result = future.get();
+                }catch (ExecutionException e) {
+                    // an error, not a failure of the configuration
+                    throw new RuntimeException("Solver thread stopped unexpectedly", e.getCause());
+                }
+
+                results.add(result);
+                if(result.isFailed()) continue;
+                if(best == null || result.getScore() > best.getScore()) best = result;
+                if(best.getScore() >= budget.targetScore) break;
+            }
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }finally {
+            // stop the solvers still running, their results are not needed anymore
+            token.cancel();
+        }
+
+        if(best == null && !results.isEmpty() && results.size() == solvers.size()) {
+            RuntimeException e = new RuntimeException("All solvers failed", results.get(0).getFailure());
+            for(int i = 1; i < results.size(); i++) {
+                e.addSuppressed(results.get(i).getFailure());
+            }
+            throw e;
+        }
+        return new PortfolioResult(best, results);
+    }
+}
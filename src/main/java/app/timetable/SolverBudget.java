@@ -0,0 +1,28 @@
+package app.timetable;
+
+import util.CancellationToken;
+
+/**
+ * Stopping conditions of a TimetableSolver run
+ */
+public class SolverBudget {
+
+    // stop after this wall-clock time, 0 for no limit
+    public long timeBudgetMillis = 0;
+
+    // stop after this number of iterations of the solver (generations, moves, tabu steps or epochs), 0 for the solver's default
+    public long maxIterations = 0;
+
+    // stop when the score reaches this value
+    public double targetScore = Double.POSITIVE_INFINITY;
+
+    /**
+     * Create the token of a run, cancelled with the given token or when the time budget is spent
+     * @param cancellationToken: token of the caller, null if the run can only stop by itself
+     * @return: token of the run
+     */
+    public CancellationToken tokenFor(CancellationToken cancellationToken) {
+        if(cancellationToken == null) cancellationToken = new CancellationToken();
+        return cancellationToken.withTimeout(timeBudgetMillis);
+    }
+}
@@ -0,0 +1,109 @@
+package app.timetable;
+
+/**
+ * Result of a TimetableSolver run
+ */
+public class SolverResult {
+
+    private final String solverName;
+    private final int[] assignment;
+    private final double score;
+    private final long iterations;
+    private final long elapsedMillis;
+    private final Throwable failure;
+
+    /**
+     * Constructor
+     * @param solverName: name of the solver configuration
+     * @param assignment: index of each class, index = roomId * nTimeSlot + timeSlotId
+     * @param score: fitness of the assignment
+     * @param iterations: number of iterations run
+     * @param elapsedMillis: wall-clock time of the run
+     */
+    public SolverResult(String solverName, int[] assignment, double score, long iterations, long elapsedMillis) {
+        this(solverName, assignment, score, iterations, elapsedMillis, null);
+    }
+
+    private SolverResult(String solverName, int[] assignment, double score, long iterations, long elapsedMillis, Throwable failure) {
+        this.solverName = solverName;
+        this.assignment = assignment;
+        this.score = score;
+        this.iterations = iterations;
+        this.elapsedMillis = elapsedMillis;
+        this.failure = failure;
+    }
+
+    /**
+     * Create the result of a run which threw, without assignment and with a score of negative infinity
+     * @param solverName: name of the solver configuration
+     * @param failure: exception thrown by the solver
+     * @param elapsedMillis: wall-clock time until the failure
+     * @return: failed result
+     */
+    public static SolverResult failed(String solverName, Throwable failure, long elapsedMillis) {
+        return new SolverResult(solverName, null, Double.NEGATIVE_INFINITY, 0, elapsedMillis, failure);
+    }
+
+    /**
+     * getter
+     * @return solverName
+     */
+    public String getSolverName() {
+        return solverName;
+    }
+
+    /**
+     * getter
+     * @return assignment
+     */
+    public int[] getAssignment() {
+        return assignment;
+    }
+
+    /**
+     * getter
+     * @return score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * getter
+     * @return iterations
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * getter
+     * @return elapsedMillis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * getter
+     * @return failure: exception thrown by the solver, null if the run succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Check whether the solver threw instead of returning a solution
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    @Override
+    public String toString() {
+        if(failure != null) {
+            return String.format("%s: failed after %d ms with %s", solverName, elapsedMillis, failure);
+        }
+        return String.format("%s: score %f after %d iterations in %d ms", solverName, score, iterations, elapsedMillis);
+    }
+}
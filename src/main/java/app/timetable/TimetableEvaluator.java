@@ -0,0 +1,320 @@
+package app.timetable;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import app.timetable.model.DataSet;
+import app.timetable.model.DataSetIndex;
+import app.timetable.model.MappedDataSet;
+
+/**
+ * Precompiled fitness evaluation of a time table dataset, shared by all solvers.
+ * A solution is encoded as one index per class, index = roomId * nTimeSlot + timeSlotId.
+ * One evaluation costs O(classes) and allocates nothing, so an evaluator can be shared between threads
+ */
+public class TimetableEvaluator {
+
+    private static final Map<Object, TimetableEvaluator> cache = new WeakHashMap<>();
+
+    private final DataSetIndex dataSetIndex;
+    private final int nClass;
+    private final int nTeacher;
+    private final int nRoom;
+    private final int nSlot;
+
+    // bitsets above this number of words are not built, the prefered lists are scanned instead
+    private static final long MAX_BITSET_WORDS = 1 << 20;
+
+    // prefered time slots and rooms of each teacher, as bitsets, null if too large
+    private final int slotWords;
+    private final int roomWords;
+    private final long[] preferedSlots;
+    private final long[] preferedRooms;
+
+    /**
+     * Constructor
+     * @param dataSet
+     * @throws IllegalArgumentException: if the dataset is not consistent
+     */
+    public TimetableEvaluator(DataSet dataSet) {
+        this(dataSet.getIndex());
+    }
+
+    /**
+     * Constructor
+     * @param dataSetIndex: normalized view of the dataset
+     */
+    public TimetableEvaluator(DataSetIndex dataSetIndex) {
+        this.dataSetIndex = dataSetIndex;
+        nClass = dataSetIndex.getClassCount();
+        nTeacher = dataSetIndex.getTeacherCount();
+        nRoom = dataSetIndex.getRoomCount();
+        nSlot = dataSetIndex.getTimeSlotCount();
+
+        slotWords = (nSlot + 63) >>> 6;
+        roomWords = (nRoom + 63) >>> 6;
+        preferedSlots = (long) nTeacher * slotWords <= MAX_BITSET_WORDS? new long[nTeacher * slotWords] : null;
+        preferedRooms = (long) nTeacher * roomWords <= MAX_BITSET_WORDS? new long[nTeacher * roomWords] : null;
+        for(int t = 0; t < nTeacher; t++) {
+            if(preferedSlots != null) {
+                for(int k = dataSetIndex.getPreferedTimeSlotStart(t); k < dataSetIndex.getPreferedTimeSlotStart(t + 1); k++) {
+                    int s = dataSetIndex.getPreferedTimeSlotAt(k);
+                    preferedSlots[t * slotWords + (s >>> 6)] |= 1L << s;
+                }
+            }
+            if(preferedRooms != null) {
+                for(int k = dataSetIndex.getPreferedRoomStart(t); k < dataSetIndex.getPreferedRoomStart(t + 1); k++) {
+                    int r = dataSetIndex.getPreferedRoomAt(k);
+                    preferedRooms[t * roomWords + (r >>> 6)] |= 1L << r;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the evaluator of a dataset, built on first use
+     * @param dataSet
+     * @return: evaluator of the dataset
+     */
+    public static TimetableEvaluator of(DataSet dataSet) {
+        synchronized(cache) {
+            TimetableEvaluator evaluator = cache.get(dataSet);
+            if(evaluator == null) {
+                evaluator = new TimetableEvaluator(dataSet);
+                cache.put(dataSet, evaluator);
+            }
+            return evaluator;
+        }
+    }
+
+    /**
+     * Get the evaluator of a binary dataset, built from the mapped file on first use
+     * @param dataSet: binary dataset
+     * @return: evaluator of the dataset
+     */
+    public static TimetableEvaluator of(MappedDataSet dataSet) {
+        synchronized(cache) {
+            TimetableEvaluator evaluator = cache.get(dataSet);
+            if(evaluator == null) {
+                evaluator = new TimetableEvaluator(dataSet.getIndex());
+                cache.put(dataSet, evaluator);
+            }
+            return evaluator;
+        }
+    }
+
+    /**
+     * getter
+     * @return number of classes
+     */
+    public int getClassCount() {
+        return nClass;
+    }
+
+    /**
+     * getter
+     * @return number of teachers
+     */
+    public int getTeacherCount() {
+        return nTeacher;
+    }
+
+    /**
+     * getter
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return nRoom;
+    }
+
+    /**
+     * getter
+     * @return number of time slots
+     */
+    public int getTimeSlotCount() {
+        return nSlot;
+    }
+
+    /**
+     * Get the number of possible indexes of a class
+     * @return: number of rooms x number of time slots
+     */
+    public int getMaxIndex() {
+        return nRoom * nSlot;
+    }
+
+    /**
+     * Get the teacher of a class
+     * @param cls: class
+     * @return: teacher
+     */
+    public int teacherOf(int cls) {
+        return dataSetIndex.getClassTeacher(cls);
+    }
+
+    /**
+     * Check whether a class fits in the room of an index
+     * @param cls: class
+     * @param index: encoded room and time slot
+     */
+    public boolean isFeasible(int cls, int index) {
+        return dataSetIndex.fits(cls, index / nSlot);
+    }
+
+    /**
+     * Check whether the room and time slot of an index are both prefered by a teacher
+     * @param t: teacher
+     * @param index: encoded room and time slot
+     */
+    public boolean isPrefered(int t, int index) {
+        int r = index / nSlot;
+        int s = index - r * nSlot;
+        return isPreferedSlot(t, s) && isPreferedRoom(t, r);
+    }
+
+    private boolean isPreferedSlot(int t, int s) {
+        if(preferedSlots != null) return (preferedSlots[t * slotWords + (s >>> 6)] & (1L << s)) != 0;
+        for(int k = dataSetIndex.getPreferedTimeSlotStart(t); k < dataSetIndex.getPreferedTimeSlotStart(t + 1); k++) {
+            if(dataSetIndex.getPreferedTimeSlotAt(k) == s) return true;
+        }
+        return false;
+    }
+
+    private boolean isPreferedRoom(int t, int r) {
+        if(preferedRooms != null) return (preferedRooms[t * roomWords + (r >>> 6)] & (1L << r)) != 0;
+        for(int k = dataSetIndex.getPreferedRoomStart(t); k < dataSetIndex.getPreferedRoomStart(t + 1); k++) {
+            if(dataSetIndex.getPreferedRoomAt(k) == r) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count the distinct time slots of a teacher's classes which fit in their room
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @param t: teacher
+     * @return: number of time slots
+     */
+    public int countTimeSlots(int[] encoded, int offset, int t) {
+        int from = dataSetIndex.getTeacherClassStart(t), to = dataSetIndex.getTeacherClassStart(t + 1);
+        if(nSlot <= 64) {
+            long mask = 0;
+            for(int k = from; k < to; k++) {
+                int i = dataSetIndex.getTeacherClassAt(k);
+                int index = encoded[offset + i];
+                if(isFeasible(i, index)) mask |= 1L << (index % nSlot);
+            }
+            return Long.bitCount(mask);
+        }
+
+        // too many time slots for a mask, teachers have few classes so compare them pairwise
+        int count = 0;
+        for(int a = from; a < to; a++) {
+            int i = dataSetIndex.getTeacherClassAt(a);
+            if(!isFeasible(i, encoded[offset + i])) continue;
+
+            int slot = encoded[offset + i] % nSlot;
+            boolean seen = false;
+            for(int b = from; b < a && !seen; b++) {
+                int k = dataSetIndex.getTeacherClassAt(b);
+                seen = isFeasible(k, encoded[offset + k]) && encoded[offset + k] % nSlot == slot;
+            }
+            if(!seen) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Count a teacher's classes which fit in their room but are not in a prefered room and time slot
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @param t: teacher
+     * @return: number of not prefered classes
+     */
+    public int countNotPrefered(int[] encoded, int offset, int t) {
+        int count = 0;
+        for(int k = dataSetIndex.getTeacherClassStart(t); k < dataSetIndex.getTeacherClassStart(t + 1); k++) {
+            int i = dataSetIndex.getTeacherClassAt(k);
+            int index = encoded[offset + i];
+            if(isFeasible(i, index) && !isPrefered(t, index)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Count the distinct time slots of each teacher's classes which fit in their room, over all teachers
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @return: number of time slots
+     */
+    public int countTimeSlots(int[] encoded, int offset) {
+        int count = 0;
+        for(int t = 0; t < nTeacher; t++) {
+            count += countTimeSlots(encoded, offset, t);
+        }
+        return count;
+    }
+
+    /**
+     * Count the classes which fit in their room but are not in a prefered room and time slot, over all teachers
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @return: number of not prefered classes
+     */
+    public int countNotPrefered(int[] encoded, int offset) {
+        int count = 0;
+        for(int t = 0; t < nTeacher; t++) {
+            count += countNotPrefered(encoded, offset, t);
+        }
+        return count;
+    }
+
+    /**
+     * Calculate the fitness of a solution in hard constraint problem
+     * @param encoded: encoded value of the solution
+     * @return: fitness, the number of arranged classes
+     */
+    public double hardFitness(int[] encoded) {
+        return hardFitness(encoded, 0);
+    }
+
+    /**
+     * Calculate the fitness of a solution in hard constraint problem
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @return: fitness, the number of arranged classes
+     */
+    public double hardFitness(int[] encoded, int offset) {
+        return countTimeSlots(encoded, offset);
+    }
+
+    /**
+     * Calculate the fitness of a solution in soft constraint problem
+     * @param encoded: encoded value of the solution
+     * @return: fitness
+     */
+    public double softFitness(int[] encoded) {
+        return softFitness(encoded, 0);
+    }
+
+    /**
+     * Calculate the fitness of a solution in soft constraint problem
+     * @param encoded: encoded values
+     * @param offset: position of the first class in encoded
+     * @return: fitness
+     */
+    public double softFitness(int[] encoded, int offset) {
+        return softFitness(countTimeSlots(encoded, offset), countNotPrefered(encoded, offset));
+    }
+
+    /**
+     * Calculate the fitness in soft constraint problem from the number of arranged time slots and not prefered classes
+     * @param nTimeSlot: number of arranged time slots
+     * @param nNotPrefered: number of not prefered classes
+     * @return: fitness, above 1 when all classes are arranged and 2 when all of them are prefered
+     */
+    public double softFitness(int nTimeSlot, int nNotPrefered) {
+        int nIllegal = nClass - nTimeSlot;
+        return 1.0 / (nIllegal + (nNotPrefered+1.0)/(nNotPrefered+2.0));
+    }
+}
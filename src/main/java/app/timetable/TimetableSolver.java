@@ -0,0 +1,27 @@
+package app.timetable;
+
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+
+/**
+ * Common entry point of the time table solvers, so that they can be run and compared the same way.
+ * A solver stops when the budget is spent, the target score is reached or the token is cancelled,
+ * and returns its best solution so far
+ */
+public interface TimetableSolver {
+
+    /**
+     * Get the name of the solver configuration, reported in the results
+     */
+    String getName();
+
+    /**
+     * Solve a dataset
+     * @param dataSet
+     * @param seed: seed of the random streams, the same seed and budget give the same result when the run is not cut by time
+     * @param budget: time and iteration budget, and target score
+     * @param cancellationToken: polled between steps to stop early
+     * @return: best assignment found with its score
+     */
+    SolverResult solve(DataSet dataSet, long seed, SolverBudget budget, CancellationToken cancellationToken);
+}
@@ -0,0 +1,212 @@
+package app.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Time table solution maintained under moves, for local search.
+ * A move puts a class at a new index (room and time slot); the class holding that index, if any, takes the old index of
+ * the moved class. The per-teacher time slot counts and the index-to-class inverse index are kept up to date,
+ * so the fitness change of a move is known in O(1) without copying or rescoring the solution.
+ * The assignment must not contain the same index twice, as produced by CombinationUtil.genCombination
+ */
+public class TimetableState {
+
+    private final TimetableEvaluator evaluator;
+    private final boolean soft;
+    private final int nSlot;
+
+    // index of each class
+    private final int[] assign;
+
+    // class at each index, -1 if free
+    private final int[] owner;
+
+    // number of feasible classes of teacher t at time slot s, at t * nSlot + s
+    private final int[] slotCount;
+
+    private int nTimeSlot;
+    private int nNotPrefered;
+
+    /**
+     * Constructor
+     * @param evaluator: evaluator of the dataset
+     * @param encoded: initial index of each class, copied
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     */
+    public TimetableState(TimetableEvaluator evaluator, int[] encoded, boolean soft) {
+        this.evaluator = evaluator;
+        this.soft = soft;
+        this.nSlot = evaluator.getTimeSlotCount();
+
+        assign = encoded.clone();
+        owner = new int[evaluator.getMaxIndex()];
+        Arrays.fill(owner, -1);
+        slotCount = new int[evaluator.getTeacherCount() * nSlot];
+
+        for(int cls = 0; cls < assign.length; cls++) {
+            int index = assign[cls];
+            owner[index] = cls;
+
+            int t = evaluator.teacherOf(cls);
+            if(t >= 0 && evaluator.isFeasible(cls, index)) {
+                if(slotCount[t * nSlot + index % nSlot]++ == 0) nTimeSlot++;
+                if(!evaluator.isPrefered(t, index)) nNotPrefered++;
+            }
+        }
+    }
+
+    /**
+     * Get the index of a class
+     * @param cls: class
+     * @return: encoded room and time slot
+     */
+    public int getIndex(int cls) {
+        return assign[cls];
+    }
+
+    /**
+     * Get the class at an index
+     * @param index: encoded room and time slot
+     * @return: class, -1 if the index is free
+     */
+    public int getOwner(int index) {
+        return owner[index];
+    }
+
+    /**
+     * Copy the index of each class to an array
+     * @param target: array of at least one element per class
+     */
+    public void copyAssignment(int[] target) {
+        System.arraycopy(assign, 0, target, 0, assign.length);
+    }
+
+    /**
+     * getter
+     * @return number of distinct arranged time slots over all teachers
+     */
+    public int getTimeSlotCount() {
+        return nTimeSlot;
+    }
+
+    /**
+     * getter
+     * @return number of arranged classes not in a prefered room and time slot
+     */
+    public int getNotPreferedCount() {
+        return nNotPrefered;
+    }
+
+    /**
+     * Get the fitness of the current assignment
+     * @return: fitness
+     */
+    public double getFitness() {
+        return fitness(nTimeSlot, nNotPrefered);
+    }
+
+    private double fitness(int nTimeSlot, int nNotPrefered) {
+        return soft? evaluator.softFitness(nTimeSlot, nNotPrefered) : nTimeSlot;
+    }
+
+    /**
+     * Calculate the fitness change of a move, without applying it.
+     * Does not modify the state, so several threads may evaluate moves of the same state
+     * @param cls: moved class
+     * @param index: new index of the class
+     * @return: fitness after the move minus current fitness
+     */
+    public double deltaMove(int cls, int index) {
+        int old = assign[cls];
+        if(old == index) return 0;
+
+        int other = owner[index];
+        int dTimeSlot = other >= 0? deltaTimeSlots(key(cls, old), key(cls, index), key(other, index), key(other, old))
+                                  : deltaTimeSlots(key(cls, old), key(cls, index), -1, -1);
+        int dNotPrefered = notPrefered(cls, index) - notPrefered(cls, old);
+        if(other >= 0) dNotPrefered += notPrefered(other, old) - notPrefered(other, index);
+
+        return fitness(nTimeSlot + dTimeSlot, nNotPrefered + dNotPrefered) - getFitness();
+    }
+
+    /**
+     * Apply a move
+     * @param cls: moved class
+     * @param index: new index of the class
+     */
+    public void applyMove(int cls, int index) {
+        int old = assign[cls];
+        if(old == index) return;
+
+        int other = owner[index];
+        remove(cls, old);
+        if(other >= 0) remove(other, index);
+
+        add(cls, index);
+        if(other >= 0) add(other, old);
+        else owner[old] = -1;
+    }
+
+    /**
+     * Check whether a class at an index counts as not prefered
+     */
+    private int notPrefered(int cls, int index) {
+        int t = evaluator.teacherOf(cls);
+        return t >= 0 && evaluator.isFeasible(cls, index) && !evaluator.isPrefered(t, index)? 1 : 0;
+    }
+
+    /**
+     * Calculate the change of distinct arranged time slots of a move.
+     * The class leaves key k0 and enters k1, the other class leaves k2 and enters k3, equal keys are merged
+     */
+    private int deltaTimeSlots(int k0, int k1, int k2, int k3) {
+        int delta = keyDelta(k0, -1 + same(k0, k1) - same(k0, k2) + same(k0, k3));
+        if(k1 != k0) delta += keyDelta(k1, 1 - same(k1, k2) + same(k1, k3));
+        if(k2 != k0 && k2 != k1) delta += keyDelta(k2, -1 + same(k2, k3));
+        if(k3 != k0 && k3 != k1 && k3 != k2) delta += keyDelta(k3, 1);
+        return delta;
+    }
+
+    private static int same(int a, int b) {
+        return a == b? 1 : 0;
+    }
+
+    /**
+     * Calculate the change of distinct arranged time slots when the count of a key changes
+     */
+    private int keyDelta(int key, int change) {
+        if(key < 0 || change == 0) return 0;
+        int before = slotCount[key];
+        int after = before + change;
+        if(before == 0) return after > 0? 1 : 0;
+        return after == 0? -1 : 0;
+    }
+
+    /**
+     * Get the (teacher, time slot) key of a class at an index
+     * @return: key, -1 if the class does not count at this index
+     */
+    private int key(int cls, int index) {
+        if(!evaluator.isFeasible(cls, index)) return -1;
+        return evaluator.teacherOf(cls) * nSlot + index % nSlot;
+    }
+
+    private void remove(int cls, int index) {
+        int t = evaluator.teacherOf(cls);
+        if(t >= 0 && evaluator.isFeasible(cls, index)) {
+            if(--slotCount[t * nSlot + index % nSlot] == 0) nTimeSlot--;
+            if(!evaluator.isPrefered(t, index)) nNotPrefered--;
+        }
+    }
+
+    private void add(int cls, int index) {
+        assign[cls] = index;
+        owner[index] = cls;
+
+        int t = evaluator.teacherOf(cls);
+        if(t >= 0 && evaluator.isFeasible(cls, index)) {
+            if(slotCount[t * nSlot + index % nSlot]++ == 0) nTimeSlot++;
+            if(!evaluator.isPrefered(t, index)) nNotPrefered++;
+        }
+    }
+}
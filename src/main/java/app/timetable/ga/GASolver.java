@@ -0,0 +1,91 @@
+package app.timetable.ga;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import api.Chromosome;
+import api.GAOptimizer;
+import api.GAOptimizer.CrossOverType;
+import api.GAOptimizer.MutationType;
+import api.GAOptimizer.SelectionType;
+import api.TerminationCriteria;
+import app.timetable.SolverBudget;
+import app.timetable.SolverResult;
+import app.timetable.TimetableEvaluator;
+import app.timetable.TimetableSolver;
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+import util.RandomStreams;
+
+/**
+ * Genetic algorithm as a TimetableSolver, an iteration is one generation
+ */
+public class GASolver implements TimetableSolver {
+
+    private final boolean soft;
+    private final double mutationRate;
+
+    /**
+     * Constructor
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     * @param mutationRate: rate of mutation
+     */
+    public GASolver(boolean soft, double mutationRate) {
+        this.soft = soft;
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * Constructor with the mutation rate of TimeTable
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     */
+    public GASolver(boolean soft) {
+        this(soft, 0.2);
+    }
+
+    @Override
+    public String getName() {
+        return soft? "ga-soft" : "ga";
+    }
+
+    @Override
+    public SolverResult solve(DataSet dataSet, long seed, SolverBudget budget, CancellationToken cancellationToken) {
+        long start = System.nanoTime();
+        TimetableEvaluator evaluator = TimetableEvaluator.of(dataSet);
+        RandomStreams streams = new RandomStreams(seed);
+
+        Random rand = streams.forWorker(0);
+        List<Chromosome> initialPopulation = new ArrayList<>();
+        for(int i = 0; i < 500; i++) {
+            initialPopulation.add(new TimeTableChromosome(evaluator, soft, rand));
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("maxIndex", evaluator.getMaxIndex());
+        params.put("tournamentThresh", 0.9);
+
+        GAOptimizer gaOptimizer = new GAOptimizer(initialPopulation,
+                                        50, 250, mutationRate,
+                                        SelectionType.TOURNAMENT,
+                                        CrossOverType.ONE_POINT,
+                                        MutationType.MUTATE_POINT,
+                                        true, params);
+        gaOptimizer.setRandom(streams.forWorker(1));
+
+        TerminationCriteria criteria = new TerminationCriteria();
+        criteria.targetFitness = budget.targetScore;
+        criteria.maxStagnantGenerations = 1000;
+        criteria.restartStagnantGenerations = 300;
+        criteria.restartFactory = r -> new TimeTableChromosome(evaluator, soft, r);
+        criteria.cancellationToken = budget.tokenFor(cancellationToken);
+
+        int numStep = budget.maxIterations > 0? (int) Math.min(budget.maxIterations, Integer.MAX_VALUE) : 2000;
+        int steps = gaOptimizer.run(numStep, criteria);
+
+        Chromosome best = gaOptimizer.getPopulations()[0];
+        return new SolverResult(getName(), best.encoded.clone(), best.getFitness(), steps, (System.nanoTime() - start) / 1000000);
+    }
+}
@@ -3,19 +3,26 @@ package app.timetable.ga;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import api.Chromosome;
+import api.FitnessCache;
+import api.FitnessFunction;
 import api.GAOptimizer;
+import api.IslandGAOptimizer;
+import api.TerminationCriteria;
+import api.IslandGAOptimizer.Topology;
 import api.GAOptimizer.CrossOverType;
 import api.GAOptimizer.MutationType;
 import api.GAOptimizer.SelectionType;
+import api.PrimitiveGAOptimizer;
+import api.PrintListener;
 import app.timetable.model.DataSet;
-import app.timetable.model.Teacher;
+import app.timetable.TimetableEvaluator;
 import util.CombinationUtil;
+import util.RandomStreams;
 
 /**
  * Time table with hard constraint problem
@@ -27,68 +34,28 @@ public class TimeTable {
     
     static int N, K;
     
+    static TimetableEvaluator evaluator;
+    
+    static FitnessFunction fitnessFunction;
+    
+    // run the primitive engine instead of GAOptimizer, with -Dprimitive=true
+    static boolean primitive = Boolean.getBoolean("primitive");
+    
+    static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    
+    static int runIndex = 0;
+    
     /**
-     * Chromosome for Time table with hard constraint
+     * Set the dataset solved by the chromosomes
+     * @param dataSet: the dataset
      */
-    static class TimeTableChromosome extends Chromosome {        
-        
-    	/**
-    	 * Constructor
-    	 * @param encoded: encoded value of the solution
-    	 */
-        public TimeTableChromosome(int[] encoded) {
-            super(encoded);
-        }
-
-        /**
-    	 * Constructor
-    	 * @param rand: random generator
-    	 */
-        public TimeTableChromosome(Random rand) {
-            super(rand);
-        }
-        
-        /**
-    	 * Calculate fitness of the solution
-    	 * @return: fitness
-    	 */
-        @Override
-        protected void randomInit(Random rand) {
-            encoded = CombinationUtil.genCombination(N, K, rand);
-            
-        }
-
-        /**
-         * Create a chromosome from encoded value
-         * @param encoded: encoded value
-         */
-        @Override
-        protected Chromosome fromEncoded(int[] encoded) {
-            return new TimeTableChromosome(encoded);
-        }
-        
-        /**
-    	 * Calculate fitness of the solution
-    	 * @return: fitness
-    	 */
-        @Override
-        protected double calcFitness() {
-            double score = 0;
-            for(Teacher teacher : dataSet.teachers) {
-                Set<Integer> timeSlotIds = new HashSet<>();
-                for(int i = 0; i < dataSet.classes.length; i++) {
-                    if(dataSet.classes[i].getTeacherId() == teacher.getId()) {
-                        int roomId = encoded[i] / dataSet.timeSlots.length;
-                        int timeSlotId = encoded[i] % dataSet.timeSlots.length;
-                        if(dataSet.rooms[roomId].getCapacity() >= dataSet.classes[i].getNumberOfStudent()) {
-                            timeSlotIds.add(timeSlotId);
-                        }
-                    }
-                }
-                score += timeSlotIds.size();
-            }
-            return score;
-        }        
+    static void setDataSet(DataSet dataSet) {
+        TimeTable.dataSet = dataSet;
+        evaluator = TimetableEvaluator.of(dataSet);
+        TimetableEvaluator e = evaluator;
+        fitnessFunction = (genes, offset, length) -> e.hardFitness(genes, offset);
+        N = dataSet.timeSlots.length * dataSet.rooms.length;
+        K = dataSet.classes.length;
     }
     
     /**
@@ -97,15 +64,19 @@ public class TimeTable {
     public static void run(String dataSetPath, double mutationRate) throws IOException {
         System.out.println("============================" + dataSetPath);
         
-        dataSet =  new DataSet(dataSetPath);
-        N = dataSet.timeSlots.length * dataSet.rooms.length;
-        K = dataSet.classes.length;
+        setDataSet(new DataSet(dataSetPath));
         
         
         Map<String, Object> params = new HashMap<>();
         params.put("maxIndex", N);
         params.put("tournamentThresh", 0.9);
         
+        TerminationCriteria criteria = new TerminationCriteria();
+        criteria.targetFitness = K;
+        criteria.maxStagnantGenerations = 1000;
+        criteria.restartStagnantGenerations = 300;
+        criteria.restartFactory = r -> new TimeTableChromosome(evaluator, false, r);
+        
         for(SelectionType selectionType : new SelectionType[] { SelectionType.TOURNAMENT, SelectionType.ROULETTE, SelectionType.REFINED}) {
             for(CrossOverType crossOverType: new CrossOverType[] {CrossOverType.UNIFORM, CrossOverType.ONE_POINT, CrossOverType.UNI_ONE_POINT, CrossOverType.UNI_THREE_PARENT}) {
                 
@@ -113,10 +84,16 @@ public class TimeTable {
                 
                 for(int k = 0; k < 3; k++) {
                     System.out.println("Run " + (k+1));
+                    if(primitive) {
+                        runPrimitive(mutationRate, selectionType, crossOverType, params, criteria);
+                        continue;
+                    }
+                    
                     List<Chromosome> initialPopulation = new ArrayList<>();
-                    Random rand = new Random();
+                    RandomStreams runStreams = streams.child(runIndex++);
+                    Random rand = runStreams.forWorker(0);
                     for(int i = 0; i < 500; i++) {
-                        initialPopulation.add(new TimeTableChromosome(rand));
+                        initialPopulation.add(new TimeTableChromosome(evaluator, false, rand));
                     }
                     
                     GAOptimizer gaOptimizer = new GAOptimizer(initialPopulation, 
@@ -125,19 +102,92 @@ public class TimeTable {
                                                     crossOverType, 
                                                     MutationType.MUTATE_POINT,
                                                     true, params);
-                    gaOptimizer.run(2000);
+                    gaOptimizer.setRandom(runStreams.forWorker(1));
+                    FitnessCache fitnessCache = new FitnessCache(100000);
+                    gaOptimizer.setEvaluationPool(ForkJoinPool.commonPool());
+                    gaOptimizer.setFitnessCache(fitnessCache);
+                    gaOptimizer.addGenerationListener(new PrintListener());
+                    gaOptimizer.setListenerSampleRate(1000);
+                    gaOptimizer.run(2000, criteria);
                     double score = gaOptimizer.getPopulations()[0].getFitness();
                     System.out.println("Score:" + score);
+                    System.out.println(String.format("Fitness cache hit rate: %.3f", fitnessCache.getHitRate()));
                 }
             }            
         }
     }
     
+    /**
+     * Run the primitive engine once, with the same settings as the GAOptimizer runs
+     */
+    static void runPrimitive(double mutationRate, SelectionType selectionType, CrossOverType crossOverType,
+                                Map<String, Object> params, TerminationCriteria criteria) {
+        List<int[]> initialPopulation = new ArrayList<>();
+        RandomStreams runStreams = streams.child(runIndex++);
+        Random rand = runStreams.forWorker(0);
+        for(int i = 0; i < 500; i++) {
+            initialPopulation.add(CombinationUtil.genCombination(N, K, rand));
+        }
+        
+        PrimitiveGAOptimizer gaOptimizer = new PrimitiveGAOptimizer(initialPopulation, fitnessFunction,
+                                                50, 250, mutationRate,
+                                                selectionType,
+                                                crossOverType, 
+                                                MutationType.MUTATE_POINT,
+                                                true, params);
+        gaOptimizer.setRandom(runStreams.forWorker(1));
+        gaOptimizer.setEvaluationPool(ForkJoinPool.commonPool());
+        gaOptimizer.addGenerationListener(new PrintListener());
+        gaOptimizer.setListenerSampleRate(1000);
+        gaOptimizer.run(2000, criteria);
+        System.out.println("Score:" + gaOptimizer.getFitness(0));
+    }
+    
+    /**
+     * Solve a dataset with an island model, one population per available core
+     */
+    public static void runIslands(String dataSetPath, double mutationRate, int numStep) throws IOException {
+        System.out.println("============================" + dataSetPath);
+        
+        setDataSet(new DataSet(dataSetPath));
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("maxIndex", N);
+        params.put("tournamentThresh", 0.9);
+        
+        List<GAOptimizer> islands = new ArrayList<>();
+        RandomStreams runStreams = streams.child(runIndex++);
+        RandomStreams initStreams = runStreams.child(0);
+        for(int k = 0; k < Runtime.getRuntime().availableProcessors(); k++) {
+            List<Chromosome> initialPopulation = new ArrayList<>();
+            Random rand = initStreams.forWorker(k);
+            for(int i = 0; i < 500; i++) {
+                initialPopulation.add(new TimeTableChromosome(evaluator, false, rand));
+            }
+            
+            islands.add(new GAOptimizer(initialPopulation, 
+                                50, 250, mutationRate,
+                                SelectionType.TOURNAMENT,
+                                CrossOverType.ONE_POINT, 
+                                MutationType.MUTATE_POINT,
+                                true, params));
+        }
+        
+        islands.get(0).addGenerationListener(new PrintListener());
+        islands.get(0).setListenerSampleRate(1000);
+        
+        IslandGAOptimizer optimizer = new IslandGAOptimizer(islands, 100, 5, Topology.RING);
+        optimizer.setRandomStreams(runStreams.child(1));
+        optimizer.run(numStep);
+        System.out.println("Score:" + optimizer.getBest().getFitness());
+    }
+    
     /**
      * Program entry point
      * @throws IOException 
      */
     public static void main(String[] args) throws IOException {
+        System.out.println("Seed: " + streams.getMasterSeed());
         run("timetable/hard/200_classes.json", 0.2);
         run("timetable/hard/160_classes.json", 0.3);
     }
@@ -0,0 +1,146 @@
+package app.timetable.ga;
+
+import java.util.Random;
+
+import api.Chromosome;
+import app.timetable.TimetableEvaluator;
+import util.CombinationUtil;
+
+/**
+ * Chromosome for Time table, scored by the evaluator of its dataset.
+ * The chromosome holds its evaluator, so several datasets can be solved at the same time
+ */
+class TimeTableChromosome extends Chromosome {
+
+    private final TimetableEvaluator evaluator;
+    private final boolean soft;
+
+    // counts behind countedFitness for the soft constraint fitness, only set by the moves
+    // so calcFitness() stays read only, the fitness may have been set from a cache since they were counted
+    private int nTimeSlot, nNotPrefered;
+    private double countedFitness = Double.NaN;
+
+    /**
+     * Constructor
+     * @param evaluator: evaluator of the dataset
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     * @param encoded: encoded value of the solution
+     */
+    TimeTableChromosome(TimetableEvaluator evaluator, boolean soft, int[] encoded) {
+        super(encoded);
+        this.evaluator = evaluator;
+        this.soft = soft;
+    }
+
+    /**
+     * Constructor
+     * @param evaluator: evaluator of the dataset
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     * @param rand: random generator
+     */
+    TimeTableChromosome(TimetableEvaluator evaluator, boolean soft, Random rand) {
+        super(new int[0]);
+        this.evaluator = evaluator;
+        this.soft = soft;
+        randomInit(rand);
+    }
+
+    /**
+     * Randomly initialize the chromosome, each class at a distinct index
+     * @param rand: random generator
+     */
+    @Override
+    protected void randomInit(Random rand) {
+        encoded = CombinationUtil.genCombination(evaluator.getMaxIndex(), evaluator.getClassCount(), rand);
+    }
+
+    /**
+     * Create a chromosome from encoded value
+     * @param encoded: encoded value
+     */
+    @Override
+    protected Chromosome fromEncoded(int[] encoded) {
+        return new TimeTableChromosome(evaluator, soft, encoded);
+    }
+
+    /**
+     * Calculate fitness of the solution
+     * @return: fitness
+     */
+    @Override
+    protected double calcFitness() {
+        return soft? evaluator.softFitness(encoded) : evaluator.hardFitness(encoded);
+    }
+
+    /**
+     * The score only depends on the teachers of the moved classes
+     */
+    @Override
+    protected boolean supportsIncrementalFitness() {
+        return true;
+    }
+
+    /**
+     * Apply a move and recalculate the score of the teachers of the moved classes
+     * @return: fitness after the move
+     */
+    @Override
+    protected double applyMoveWithFitness(double fitness, int i, int vi, int j, int vj) {
+        int ti = evaluator.teacherOf(i);
+        int tj = j >= 0? evaluator.teacherOf(j) : ti;
+
+        if(!soft) {
+            int before = countTimeSlots(ti, tj);
+            encoded[i] = vi;
+            if(j >= 0) encoded[j] = vj;
+            return fitness + countTimeSlots(ti, tj) - before;
+        }
+
+        if(fitness != countedFitness) setCounts(fitness);
+
+        nTimeSlot -= countTimeSlots(ti, tj);
+        nNotPrefered -= countNotPrefered(ti, tj);
+        encoded[i] = vi;
+        if(j >= 0) encoded[j] = vj;
+        nTimeSlot += countTimeSlots(ti, tj);
+        nNotPrefered += countNotPrefered(ti, tj);
+
+        countedFitness = evaluator.softFitness(nTimeSlot, nNotPrefered);
+        return countedFitness;
+    }
+
+    private int countTimeSlots(int ti, int tj) {
+        int n = evaluator.countTimeSlots(encoded, 0, ti);
+        if(tj != ti) n += evaluator.countTimeSlots(encoded, 0, tj);
+        return n;
+    }
+
+    private int countNotPrefered(int ti, int tj) {
+        int n = evaluator.countNotPrefered(encoded, 0, ti);
+        if(tj != ti) n += evaluator.countNotPrefered(encoded, 0, tj);
+        return n;
+    }
+
+    /**
+     * Set the counts behind a soft constraint fitness, which was calculated elsewhere such as in a fitness cache.
+     * The fitness is 1 / (nIllegal + (nNotPrefered+1)/(nNotPrefered+2)), so the counts are recovered from it in O(1),
+     * and recounted in the rare case rounding prevents it
+     * @param fitness: fitness of the encoded value
+     */
+    private void setCounts(double fitness) {
+        double inverse = 1.0 / fitness;
+        int nIllegal = (int) Math.floor(inverse);
+        int nNotPrefered = (int) Math.round(1.0 / (1.0 - (inverse - nIllegal))) - 2;
+        int nTimeSlot = evaluator.getClassCount() - nIllegal;
+
+        if(nNotPrefered >= 0 && evaluator.softFitness(nTimeSlot, nNotPrefered) == fitness) {
+            this.nTimeSlot = nTimeSlot;
+            this.nNotPrefered = nNotPrefered;
+            countedFitness = fitness;
+        }else {
+            this.nTimeSlot = evaluator.countTimeSlots(encoded, 0);
+            this.nNotPrefered = evaluator.countNotPrefered(encoded, 0);
+            countedFitness = evaluator.softFitness(this.nTimeSlot, this.nNotPrefered);
+        }
+    }
+}
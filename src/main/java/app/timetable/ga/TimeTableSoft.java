@@ -3,20 +3,22 @@ package app.timetable.ga;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import api.Chromosome;
+import api.FitnessCache;
 import api.GAOptimizer;
+import api.TerminationCriteria;
 import api.GAOptimizer.CrossOverType;
 import api.GAOptimizer.MutationType;
 import api.GAOptimizer.SelectionType;
+import api.PrintListener;
 import app.timetable.model.DataSet;
-import app.timetable.model.Teacher;
-import util.CombinationUtil;
+import app.timetable.TimetableEvaluator;
+import util.RandomStreams;
 
 
 /**
@@ -28,88 +30,22 @@ public class TimeTableSoft {
     static DataSet dataSet;
     
     static int N, K;
+    
+    static TimetableEvaluator evaluator;
+    
+    static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    
+    static int runIndex = 0;
+    
     /**
-     * Chromosome for Time table with hard constraint
+     * Set the dataset solved by the chromosomes
+     * @param dataSet: the dataset
      */
-    static class TimeTableChromosome extends Chromosome {        
-        
-    	/**
-    	 * Constructor
-    	 * @param encoded: encoded value of the solution
-    	 */
-        public TimeTableChromosome(int[] encoded) {
-            super(encoded);
-        }
-
-        /**
-    	 * Constructor
-    	 * @param rand: random generator
-    	 */
-        public TimeTableChromosome(Random rand) {
-            super(rand);
-        }
-        
-        /**
-    	 * Calculate fitness of the solution
-    	 * @return: fitness
-    	 */
-        @Override
-        protected void randomInit(Random rand) {
-            encoded = CombinationUtil.genCombination(N, K, rand);
-            
-        }
-
-        /**
-         * Create a chromosome from encoded value
-         * @param encoded: encoded value
-         */
-        @Override
-        protected Chromosome fromEncoded(int[] encoded) {
-            return new TimeTableChromosome(encoded);
-        }
-        
-        /**
-    	 * Calculate fitness of the solution
-    	 * @return: fitness
-    	 */
-        @Override
-        protected double calcFitness() {
-            int nTimeSlot = 0;
-            int nNotPrefered = 0;
-            
-            for(Teacher teacher : dataSet.teachers) {
-                Set<Integer> timeSlotIds = new HashSet<>();
-                for(int i = 0; i < K; i++) {
-                    if(dataSet.classes[i].getTeacherId() == teacher.getId()) {
-                        int roomId = encoded[i] / dataSet.timeSlots.length;
-                        int timeSlotId = encoded[i] % dataSet.timeSlots.length;
-                        if(dataSet.rooms[roomId].getCapacity() >= dataSet.classes[i].getNumberOfStudent()) {
-                            timeSlotIds.add(timeSlotId);
-                            
-                            boolean preferedTimeSlot = false;
-                            for(int preferedTimeSlotId : teacher.getPreferedTimeSlotIds()) {
-                            	if(preferedTimeSlotId == timeSlotId) {
-                            		preferedTimeSlot = true;
-                            		break;
-                            	}
-                            }
-                            
-                            boolean preferedRoom = false;
-                            for(int preferedRoomId : teacher.getPreferedRoomIds()) {
-                            	if(preferedRoomId == roomId) {
-                            		preferedRoom = true;
-                            	}
-                            }
-                            
-                            if(!preferedTimeSlot || !preferedRoom) nNotPrefered += 1;                            
-                        }
-                    }
-                }
-                nTimeSlot += timeSlotIds.size();
-            }
-            int nIllegal = dataSet.classes.length - nTimeSlot;
-            return 1.0 / (nIllegal + (nNotPrefered+1.0)/(nNotPrefered+2.0));
-        }        
+    static void setDataSet(DataSet dataSet) {
+        TimeTableSoft.dataSet = dataSet;
+        evaluator = TimetableEvaluator.of(dataSet);
+        N = dataSet.timeSlots.length * dataSet.rooms.length;
+        K = dataSet.classes.length;
     }
     
     /**
@@ -118,15 +54,20 @@ public class TimeTableSoft {
     public static void run(String dataSetPath, double mutationRate) throws IOException {
         System.out.println("============================" + dataSetPath);
         
-        dataSet =  new DataSet(dataSetPath);
-        N = dataSet.timeSlots.length * dataSet.rooms.length;
-        K = dataSet.classes.length;
+        setDataSet(new DataSet(dataSetPath));
         
         
         Map<String, Object> params = new HashMap<>();
         params.put("maxIndex", N);
         params.put("tournamentThresh", 0.9);
         
+        // every class arranged in a prefered room and time slot
+        TerminationCriteria criteria = new TerminationCriteria();
+        criteria.targetFitness = 2.0;
+        criteria.maxStagnantGenerations = 3000;
+        criteria.restartStagnantGenerations = 1000;
+        criteria.restartFactory = r -> new TimeTableChromosome(evaluator, true, r);
+        
         for(SelectionType selectionType : new SelectionType[] {SelectionType.TOURNAMENT, SelectionType.ROULETTE, SelectionType.REFINED}) {
             for(CrossOverType crossOverType: new CrossOverType[] { CrossOverType.ONE_POINT, CrossOverType.UNI_ONE_POINT, CrossOverType.UNI_THREE_PARENT}) {
                 System.out.println(String.format("Selection type: %s, crossovertype: %s", selectionType, crossOverType));
@@ -134,9 +75,10 @@ public class TimeTableSoft {
                 for(int k = 0; k < 8; k++) {
                     System.out.println("Run " + (k+1));
                     List<Chromosome> initialPopulation = new ArrayList<>();
-                    Random rand = new Random();
+                    RandomStreams runStreams = streams.child(runIndex++);
+                    Random rand = runStreams.forWorker(0);
                     for(int i = 0; i < 500; i++) {
-                        initialPopulation.add(new TimeTableChromosome(rand));
+                        initialPopulation.add(new TimeTableChromosome(evaluator, true, rand));
                     }
                     
                     GAOptimizer gaOptimizer = new GAOptimizer(initialPopulation, 
@@ -145,12 +87,19 @@ public class TimeTableSoft {
                                                     crossOverType, 
                                                     MutationType.MUTATE_POINT,
                                                     true, params);
-                    gaOptimizer.run(10000);
+                    gaOptimizer.setRandom(runStreams.forWorker(1));
+                    FitnessCache fitnessCache = new FitnessCache(100000);
+                    gaOptimizer.setEvaluationPool(ForkJoinPool.commonPool());
+                    gaOptimizer.setFitnessCache(fitnessCache);
+                    gaOptimizer.addGenerationListener(new PrintListener());
+                    gaOptimizer.setListenerSampleRate(1000);
+                    gaOptimizer.run(10000, criteria);
                     double score = gaOptimizer.getPopulations()[0].getFitness();
                     if(score >= 1.0) {
                         int nUnprefered = (int)( 1/(score-1) - 1);
                         System.out.println("Unprefered classes:" + nUnprefered);
                     }
+                    System.out.println(String.format("Fitness cache hit rate: %.3f", fitnessCache.getHitRate()));
                 }
             }            
         }
@@ -161,6 +110,7 @@ public class TimeTableSoft {
      * @throws IOException 
      */
     public static void main(String[] args) throws IOException {
+        System.out.println("Seed: " + streams.getMasterSeed());
         run("timetable/soft/200_classes.json", 0.25);
         run("timetable/soft/160_classes.json", 0.35);
     }
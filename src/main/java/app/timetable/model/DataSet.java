@@ -1,15 +1,20 @@
 package app.timetable.model;
 
-import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -23,6 +28,10 @@ public class DataSet {
     public Room[] rooms;
     public  Class_[] classes;
     
+    private volatile DataSetIndex index;
+    
+    private static final JsonFactory jsonFactory = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    
     /**
      * Constructor
      * @param teachers
@@ -37,6 +46,26 @@ public class DataSet {
         this.classes = classes;
     }
     
+    /**
+     * Get the normalized view of the dataset, built and validated on first use.
+     * Later changes to the arrays of the dataset are not seen by the view
+     * @return: view of the dataset
+     * @throws IllegalArgumentException: if the dataset is not consistent
+     **/
+    public DataSetIndex getIndex() {
+        DataSetIndex result = index;
+        if(result == null) {
+            synchronized(this) {
+                result = index;
+                if(result == null) {
+                    result = new DataSetIndex(this);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Convert dataset to json
      **/    
@@ -62,28 +91,89 @@ public class DataSet {
     }
     
     /**
-     * Load dataset from file
+     * Save dataset to a binary file, see MappedDataSet for the format
+     * @param path
+     **/
+    public void saveBinary(Path path) throws IOException {
+        MappedDataSet.write(this, path);
+    }
+    
+    /**
+     * Load dataset from a binary file written by saveBinary.
+     * The solvers only need the index, see MappedDataSet.getIndex to use the file without the object model
+     * @param path
+     * @return: dataset
+     **/
+    public static DataSet loadBinary(Path path) throws IOException {
+        MappedDataSet mappedDataSet = MappedDataSet.open(path);
+        DataSet dataSet = mappedDataSet.toDataSet();
+        dataSet.index = mappedDataSet.getIndex();
+        return dataSet;
+    }
+    
+    /**
+     * Load dataset from a classpath resource, also when packaged in a jar
+     * @param resourceName: name of the resource, like timetable/hard/160_classes.json
      **/
-    @SuppressWarnings("unchecked")
     public DataSet(String resourceName) throws IOException {
-        String fn = DataSet.class.getClassLoader().getResource(resourceName).getFile();
-        ObjectMapper mapper = new ObjectMapper();
-        Map<String, Object> obj = mapper.readValue(new File(fn), Map.class);
-        
-        List<Map<String, Object>> teachersObjList = (List<Map<String, Object>>) obj.get("teachers");
-        List<Teacher> teacherList = teachersObjList.stream().map(x -> new Teacher(x)).collect(Collectors.toList());
-        this.teachers = teacherList.toArray(new Teacher[0]);
-        
-        List<Map<String, Object>> timeSlotsObjList = (List<Map<String, Object>>) obj.get("timeSlots");
-        List<TimeSlot> timeSlotList = timeSlotsObjList.stream().map(x -> new TimeSlot(x)).collect(Collectors.toList());
-        this.timeSlots = timeSlotList.toArray(new TimeSlot[0]);
+        InputStream in = DataSet.class.getClassLoader().getResourceAsStream(resourceName);
+        if(in == null) {
+            throw new FileNotFoundException("Resource not found: " + resourceName);
+        }
         
-        List<Map<String, Object>> roomsObjList = (List<Map<String, Object>>) obj.get("rooms");
-        List<Room> roomList = roomsObjList.stream().map(x -> new Room(x)).collect(Collectors.toList());
-        this.rooms = roomList.toArray(new Room[0]);
-        
-        List<Map<String, Object>> classesObjList = (List<Map<String, Object>>) obj.get("classes");
-        List<Class_> classList = classesObjList.stream().map(x -> new Class_(x)).collect(Collectors.toList());
-        this.classes = classList.toArray(new Class_[0]);
+        DataSet dataSet;
+        try {
+            dataSet = load(in);
+        }finally {
+            in.close();
+        }
+        this.teachers = dataSet.teachers;
+        this.timeSlots = dataSet.timeSlots;
+        this.rooms = dataSet.rooms;
+        this.classes = dataSet.classes;
+        this.index = dataSet.index;
+    }
+    
+    /**
+     * Load dataset from a json file
+     * @param path
+     * @return: dataset
+     **/
+    public static DataSet load(Path path) throws IOException {
+        try(InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+    
+    /**
+     * Load dataset from a json stream, the stream is not closed
+     * @param in
+     * @return: dataset
+     **/
+    public static DataSet load(InputStream in) throws IOException {
+        try(JsonParser parser = jsonFactory.createParser(in)) {
+            return parse(parser);
+        }
+    }
+    
+    /**
+     * Load dataset from a json reader, the reader is not closed
+     * @param reader
+     * @return: dataset
+     **/
+    public static DataSet load(Reader reader) throws IOException {
+        try(JsonParser parser = jsonFactory.createParser(reader)) {
+            return parse(parser);
+        }
+    }
+    
+    /**
+     * Read and validate a dataset
+     * @throws IllegalArgumentException: if the dataset is not consistent
+     **/
+    private static DataSet parse(JsonParser parser) throws IOException {
+        DataSet dataSet = new DataSetParser(parser).parse();
+        dataSet.getIndex();
+        return dataSet;
     }
 }
@@ -0,0 +1,332 @@
+package app.timetable.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Normalized, immutable view of a dataset as primitive arrays, for the solvers.
+ * Teachers, time slots, rooms and classes are numbered from 0 in the order of the dataset arrays,
+ * and each class refers to its teacher by that number instead of the teacher id.
+ * Lists per teacher are stored in CSR form: the classes of teacher t are getTeacherClassAt(k)
+ * for k in [getTeacherClassStart(t), getTeacherClassStart(t+1)), and the same for prefered time slots and rooms.
+ * The dataset is validated when the view is built, see DataSet.getIndex and MappedDataSet.getIndex
+ */
+public class DataSetIndex {
+
+    private final int nTeacher, nTimeSlot, nRoom, nClass;
+
+    private final int[] teacherId;
+    private final int[] classTeacher;
+    private final int[] classSize;
+    private final int[] roomCapacity;
+
+    private final int[] teacherClassStart, teacherClasses;
+    private final int[] preferedTimeSlotStart, preferedTimeSlots;
+    private final int[] preferedRoomStart, preferedRooms;
+
+    /**
+     * Constructor
+     * @param dataSet
+     * @throws IllegalArgumentException: if the dataset is not consistent, with the reason
+     */
+    public DataSetIndex(DataSet dataSet) {
+        this(Source.of(dataSet));
+    }
+
+    /**
+     * Constructor reading the mapped file directly, without building the object model
+     * @param dataSet: binary dataset
+     * @throws IllegalArgumentException: if the dataset is not consistent, with the reason
+     */
+    public DataSetIndex(MappedDataSet dataSet) {
+        this(Source.of(dataSet));
+    }
+
+    /**
+     * Raw arrays of a dataset, in the order of the dataset, before validation
+     */
+    private static class Source {
+        int nTimeSlot;
+        int[] roomCapacity;
+        int[] teacherId;
+        int[] preferedTimeSlotStart, preferedTimeSlots;
+        int[] preferedRoomStart, preferedRooms;
+        int[] classTeacherId;
+        int[] classSize;
+
+        static Source of(DataSet dataSet) {
+            Source source = new Source();
+            source.nTimeSlot = dataSet.timeSlots.length;
+            for(int s = 0; s < source.nTimeSlot; s++) {
+                if(dataSet.timeSlots[s] == null) throw new IllegalArgumentException("Time slot " + s + " is null");
+            }
+
+            source.roomCapacity = new int[dataSet.rooms.length];
+            for(int r = 0; r < dataSet.rooms.length; r++) {
+                Room room = dataSet.rooms[r];
+                if(room == null) throw new IllegalArgumentException("Room " + r + " is null");
+                source.roomCapacity[r] = room.getCapacity();
+            }
+
+            int nTeacher = dataSet.teachers.length;
+            source.teacherId = new int[nTeacher];
+            source.preferedTimeSlotStart = new int[nTeacher + 1];
+            source.preferedRoomStart = new int[nTeacher + 1];
+            for(int t = 0; t < nTeacher; t++) {
+                Teacher teacher = dataSet.teachers[t];
+                if(teacher == null) throw new IllegalArgumentException("Teacher " + t + " is null");
+                source.teacherId[t] = teacher.getId();
+                source.preferedTimeSlotStart[t + 1] = source.preferedTimeSlotStart[t] + teacher.getPreferedTimeSlotIds().length;
+                source.preferedRoomStart[t + 1] = source.preferedRoomStart[t] + teacher.getPreferedRoomIds().length;
+            }
+            source.preferedTimeSlots = new int[source.preferedTimeSlotStart[nTeacher]];
+            source.preferedRooms = new int[source.preferedRoomStart[nTeacher]];
+            for(int t = 0; t < nTeacher; t++) {
+                Teacher teacher = dataSet.teachers[t];
+                int[] ids = teacher.getPreferedTimeSlotIds();
+                System.arraycopy(ids, 0, source.preferedTimeSlots, source.preferedTimeSlotStart[t], ids.length);
+                ids = teacher.getPreferedRoomIds();
+                System.arraycopy(ids, 0, source.preferedRooms, source.preferedRoomStart[t], ids.length);
+            }
+
+            int nClass = dataSet.classes.length;
+            source.classTeacherId = new int[nClass];
+            source.classSize = new int[nClass];
+            for(int i = 0; i < nClass; i++) {
+                Class_ cls = dataSet.classes[i];
+                if(cls == null) throw new IllegalArgumentException("Class " + i + " is null");
+                source.classTeacherId[i] = cls.getTeacherId();
+                source.classSize[i] = cls.getNumberOfStudent();
+            }
+            return source;
+        }
+
+        static Source of(MappedDataSet dataSet) {
+            Source source = new Source();
+            source.nTimeSlot = dataSet.getTimeSlotCount();
+
+            source.roomCapacity = new int[dataSet.getRoomCount()];
+            for(int r = 0; r < source.roomCapacity.length; r++) {
+                source.roomCapacity[r] = dataSet.getRoomCapacity(r);
+            }
+
+            int nTeacher = dataSet.getTeacherCount();
+            source.teacherId = new int[nTeacher];
+            source.preferedTimeSlotStart = new int[nTeacher + 1];
+            source.preferedRoomStart = new int[nTeacher + 1];
+            for(int t = 0; t < nTeacher; t++) {
+                source.teacherId[t] = dataSet.getTeacherId(t);
+                source.preferedTimeSlotStart[t + 1] = source.preferedTimeSlotStart[t] + dataSet.getPreferedTimeSlotCount(t);
+                source.preferedRoomStart[t + 1] = source.preferedRoomStart[t] + dataSet.getPreferedRoomCount(t);
+            }
+            source.preferedTimeSlots = new int[source.preferedTimeSlotStart[nTeacher]];
+            source.preferedRooms = new int[source.preferedRoomStart[nTeacher]];
+            for(int t = 0; t < nTeacher; t++) {
+                for(int k = 0; k < dataSet.getPreferedTimeSlotCount(t); k++) {
+                    source.preferedTimeSlots[source.preferedTimeSlotStart[t] + k] = dataSet.getPreferedTimeSlotId(t, k);
+                }
+                for(int k = 0; k < dataSet.getPreferedRoomCount(t); k++) {
+                    source.preferedRooms[source.preferedRoomStart[t] + k] = dataSet.getPreferedRoomId(t, k);
+                }
+            }
+
+            int nClass = dataSet.getClassCount();
+            source.classTeacherId = new int[nClass];
+            source.classSize = new int[nClass];
+            for(int i = 0; i < nClass; i++) {
+                source.classTeacherId[i] = dataSet.getClassTeacherId(i);
+                source.classSize[i] = dataSet.getClassNumberOfStudent(i);
+            }
+            return source;
+        }
+    }
+
+    /**
+     * Validate the raw arrays of a dataset and build the view, reusing the arrays which need no change
+     * @param source
+     */
+    private DataSetIndex(Source source) {
+        nTeacher = source.teacherId.length;
+        nTimeSlot = source.nTimeSlot;
+        nRoom = source.roomCapacity.length;
+        nClass = source.classTeacherId.length;
+
+        if(nClass > (long) nRoom * nTimeSlot) {
+            throw new IllegalArgumentException(nClass + " classes do not fit in " + nRoom + " rooms x " + nTimeSlot + " time slots");
+        }
+
+        roomCapacity = source.roomCapacity;
+        for(int r = 0; r < nRoom; r++) {
+            if(roomCapacity[r] < 0) throw new IllegalArgumentException("Room " + r + " has a negative capacity");
+        }
+
+        teacherId = source.teacherId;
+        Map<Integer, Integer> teacherById = new HashMap<>();
+        for(int t = 0; t < nTeacher; t++) {
+            if(teacherById.put(teacherId[t], t) != null) {
+                throw new IllegalArgumentException("Duplicate teacher id " + teacherId[t]);
+            }
+        }
+
+        preferedTimeSlotStart = source.preferedTimeSlotStart;
+        preferedTimeSlots = source.preferedTimeSlots;
+        preferedRoomStart = source.preferedRoomStart;
+        preferedRooms = source.preferedRooms;
+        for(int t = 0; t < nTeacher; t++) {
+            checkIds(preferedTimeSlots, preferedTimeSlotStart[t], preferedTimeSlotStart[t + 1], nTimeSlot, teacherId[t], "time slot");
+            checkIds(preferedRooms, preferedRoomStart[t], preferedRoomStart[t + 1], nRoom, teacherId[t], "room");
+        }
+
+        classTeacher = new int[nClass];
+        classSize = source.classSize;
+        teacherClassStart = new int[nTeacher + 1];
+        for(int i = 0; i < nClass; i++) {
+            Integer t = teacherById.get(source.classTeacherId[i]);
+            if(t == null) {
+                throw new IllegalArgumentException("Class " + i + " refers to unknown teacher id " + source.classTeacherId[i]);
+            }
+            if(classSize[i] < 0) throw new IllegalArgumentException("Class " + i + " has a negative size");
+            classTeacher[i] = t;
+            teacherClassStart[t + 1]++;
+        }
+        for(int t = 0; t < nTeacher; t++) {
+            teacherClassStart[t + 1] += teacherClassStart[t];
+        }
+
+        teacherClasses = new int[nClass];
+        int[] next = new int[nTeacher];
+        for(int i = 0; i < nClass; i++) {
+            int t = classTeacher[i];
+            teacherClasses[teacherClassStart[t] + next[t]++] = i;
+        }
+    }
+
+    private static void checkIds(int[] ids, int from, int to, int bound, int teacherId, String what) {
+        for(int k = from; k < to; k++) {
+            if(ids[k] < 0 || ids[k] >= bound) {
+                throw new IllegalArgumentException("Teacher id " + teacherId + " prefers unknown " + what + " " + ids[k]);
+            }
+        }
+    }
+
+    /**
+     * getter
+     * @return number of teachers
+     */
+    public int getTeacherCount() {
+        return nTeacher;
+    }
+
+    /**
+     * getter
+     * @return number of time slots
+     */
+    public int getTimeSlotCount() {
+        return nTimeSlot;
+    }
+
+    /**
+     * getter
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return nRoom;
+    }
+
+    /**
+     * getter
+     * @return number of classes
+     */
+    public int getClassCount() {
+        return nClass;
+    }
+
+    /**
+     * Get the id of a teacher in the dataset
+     * @param t: teacher
+     */
+    public int getTeacherId(int t) {
+        return teacherId[t];
+    }
+
+    /**
+     * Get the teacher of a class
+     * @param cls: class
+     */
+    public int getClassTeacher(int cls) {
+        return classTeacher[cls];
+    }
+
+    /**
+     * Get the number of students of a class
+     * @param cls: class
+     */
+    public int getClassSize(int cls) {
+        return classSize[cls];
+    }
+
+    /**
+     * Get the capacity of a room
+     * @param r: room
+     */
+    public int getRoomCapacity(int r) {
+        return roomCapacity[r];
+    }
+
+    /**
+     * Get the start of a teacher's classes in CSR form
+     * @param t: teacher, or the number of teachers for the end of the last one
+     */
+    public int getTeacherClassStart(int t) {
+        return teacherClassStart[t];
+    }
+
+    /**
+     * Get a class in CSR form
+     * @param k: position, from getTeacherClassStart
+     */
+    public int getTeacherClassAt(int k) {
+        return teacherClasses[k];
+    }
+
+    /**
+     * Get the start of a teacher's prefered time slots in CSR form
+     * @param t: teacher, or the number of teachers for the end of the last one
+     */
+    public int getPreferedTimeSlotStart(int t) {
+        return preferedTimeSlotStart[t];
+    }
+
+    /**
+     * Get a prefered time slot in CSR form
+     * @param k: position, from getPreferedTimeSlotStart
+     */
+    public int getPreferedTimeSlotAt(int k) {
+        return preferedTimeSlots[k];
+    }
+
+    /**
+     * Get the start of a teacher's prefered rooms in CSR form
+     * @param t: teacher, or the number of teachers for the end of the last one
+     */
+    public int getPreferedRoomStart(int t) {
+        return preferedRoomStart[t];
+    }
+
+    /**
+     * Get a prefered room in CSR form
+     * @param k: position, from getPreferedRoomStart
+     */
+    public int getPreferedRoomAt(int k) {
+        return preferedRooms[k];
+    }
+
+    /**
+     * Check whether a room can hold a class
+     * @param cls: class
+     * @param r: room
+     */
+    public boolean fits(int cls, int r) {
+        return roomCapacity[r] >= classSize[cls];
+    }
+}
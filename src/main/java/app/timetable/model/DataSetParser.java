@@ -0,0 +1,229 @@
+package app.timetable.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming reader of a dataset in json format.
+ * Reads tokens straight into the model objects, without building a tree of maps or boxing numbers,
+ * so the memory used is the dataset itself plus the parser buffer
+ */
+class DataSetParser {
+
+    private final JsonParser parser;
+
+    // growable buffer for the prefered ids of the current teacher
+    private int[] ids = new int[16];
+    private int nId;
+
+    /**
+     * Constructor
+     * @param parser: parser positioned before the root object
+     */
+    DataSetParser(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Read the dataset
+     * @return: dataset, sections missing from the document are empty
+     */
+    DataSet parse() throws IOException {
+        List<Teacher> teachers = new ArrayList<>();
+        List<TimeSlot> timeSlots = new ArrayList<>();
+        List<Room> rooms = new ArrayList<>();
+        List<Class_> classes = new ArrayList<>();
+
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String section = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if(token == JsonToken.VALUE_NULL) continue;
+
+            switch(section) {
+            case "teachers":
+                expect(token, JsonToken.START_ARRAY);
+                while(nextElement()) teachers.add(readTeacher());
+                break;
+            case "timeSlots":
+                expect(token, JsonToken.START_ARRAY);
+                while(nextElement()) timeSlots.add(readTimeSlot());
+                break;
+            case "rooms":
+                expect(token, JsonToken.START_ARRAY);
+                while(nextElement()) rooms.add(readRoom());
+                break;
+            case "classes":
+                expect(token, JsonToken.START_ARRAY);
+                while(nextElement()) classes.add(readClass());
+                break;
+            default:
+                parser.skipChildren();
+            }
+        }
+
+        return new DataSet(teachers.toArray(new Teacher[0]), timeSlots.toArray(new TimeSlot[0]),
+                            rooms.toArray(new Room[0]), classes.toArray(new Class_[0]));
+    }
+
+    /**
+     * Move to the next element of an array
+     * @return: true if positioned on an object, false at the end of the array
+     */
+    private boolean nextElement() throws IOException {
+        JsonToken token = parser.nextToken();
+        if(token == JsonToken.END_ARRAY) return false;
+        expect(token, JsonToken.START_OBJECT);
+        return true;
+    }
+
+    private Teacher readTeacher() throws IOException {
+        int id = 0;
+        String name = null;
+        int[] preferedTimeSlotIds = new int[0];
+        int[] preferedRoomIds = new int[0];
+
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch(field) {
+            case "id": id = readInt(); break;
+            case "name": name = parser.getValueAsString(); break;
+            case "preferedTimeSlotIds": preferedTimeSlotIds = readIds(); break;
+            case "preferedRoomIds": preferedRoomIds = readIds(); break;
+            default: parser.skipChildren();
+            }
+        }
+        return new Teacher(id, name, preferedTimeSlotIds, preferedRoomIds);
+    }
+
+    private TimeSlot readTimeSlot() throws IOException {
+        int startHour = 0, startMinute = 0, endHour = 0, endMinute = 0, dayOfWeek = 0;
+
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch(field) {
+            case "startHour": startHour = readInt(); break;
+            case "startMinute": startMinute = readInt(); break;
+            case "endHour": endHour = readInt(); break;
+            case "endMinute": endMinute = readInt(); break;
+            case "dayOfWeek": dayOfWeek = readInt(); break;
+            default: parser.skipChildren();
+            }
+        }
+        return new TimeSlot(startHour, startMinute, endHour, endMinute, dayOfWeek);
+    }
+
+    private Room readRoom() throws IOException {
+        String name = null;
+        int capacity = 0;
+
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch(field) {
+            case "name": name = parser.getValueAsString(); break;
+            case "capacity": capacity = readInt(); break;
+            default: parser.skipChildren();
+            }
+        }
+        return new Room(name, capacity);
+    }
+
+    private Class_ readClass() throws IOException {
+        String name = null;
+        int teacherId = 0, numberOfStudent = 0;
+
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch(field) {
+            case "name": name = parser.getValueAsString(); break;
+            case "teacherId": teacherId = readInt(); break;
+            case "numberOfStudent": numberOfStudent = readInt(); break;
+            default: parser.skipChildren();
+            }
+        }
+        return new Class_(name, teacherId, numberOfStudent);
+    }
+
+    /**
+     * Read the current value as an int
+     */
+    private int readInt() throws IOException {
+        if(parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, "Expected an integer but found " + parser.currentToken());
+        }
+        return parser.getIntValue();
+    }
+
+    /**
+     * Read a list of ids, either as a comma separated string like "4,7,9" or as an array of integers
+     * @return: ids
+     */
+    private int[] readIds() throws IOException {
+        nId = 0;
+        JsonToken token = parser.currentToken();
+
+        if(token == JsonToken.START_ARRAY) {
+            while(parser.nextToken() != JsonToken.END_ARRAY) {
+                addId(readInt());
+            }
+        }else if(token == JsonToken.VALUE_STRING) {
+            char[] text = parser.getTextCharacters();
+            int from = parser.getTextOffset(), to = from + parser.getTextLength();
+            long value = 0;
+            // ended: a space followed the id, only spaces may come before the next comma
+            boolean hasDigit = false, negative = false, ended = false;
+            for(int i = from; i <= to; i++) {
+                char c = i < to? text[i] : ',';
+                if(c >= '0' && c <= '9' && !ended) {
+                    value = value * 10 + (c - '0');
+                    if(value > Integer.MAX_VALUE + 1L) throw invalidIds();
+                    hasDigit = true;
+                }else if(c == '-' && !hasDigit && !negative) {
+                    negative = true;
+                }else if(c == ',') {
+                    if(negative && !hasDigit) throw invalidIds();
+                    if(hasDigit) {
+                        long id = negative? -value : value;
+                        if(id > Integer.MAX_VALUE) throw invalidIds();
+                        addId((int) id);
+                    }
+                    value = 0;
+                    hasDigit = negative = ended = false;
+                }else if(c == ' ') {
+                    ended = hasDigit || negative;
+                }else {
+                    throw invalidIds();
+                }
+            }
+        }else if(token != JsonToken.VALUE_NULL) {
+            throw new JsonParseException(parser, "Expected a list of ids but found " + token);
+        }
+
+        return Arrays.copyOf(ids, nId);
+    }
+
+    private JsonParseException invalidIds() throws IOException {
+        return new JsonParseException(parser, "Invalid id list: " + parser.getText());
+    }
+
+    private void addId(int id) {
+        if(nId == ids.length) ids = Arrays.copyOf(ids, 2 * ids.length);
+        ids[nId++] = id;
+    }
+
+    private void expect(JsonToken token, JsonToken expected) throws IOException {
+        if(token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + token);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package app.timetable.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dataset stored in a compact binary file and read through a memory mapping.
+ * The data is read in place from the mapped file, so workers opening the same file share its pages
+ * instead of each parsing json into its own copy. Accessors only read the mapping, so they can be
+ * called from several threads.
+ *
+ * File layout, all values are little-endian 32 bits integers:
+ * - header: magic, version, nTeacher, nTimeSlot, nRoom, nClass, nPreferedTimeSlot, nPreferedRoom, nString, nStringByte
+ * - teachers: id, name per teacher
+ * - prefered time slots: start of each teacher's list (nTeacher + 1), then the ids (nPreferedTimeSlot)
+ * - prefered rooms: start of each teacher's list (nTeacher + 1), then the ids (nPreferedRoom)
+ * - time slots: startHour, startMinute, endHour, endMinute, dayOfWeek per time slot
+ * - rooms: name, capacity per room
+ * - classes: name, teacherId, numberOfStudent per class
+ * - string table: start of each string (nString + 1) in the bytes, then the UTF-8 bytes (nStringByte)
+ * A name is the index of a string in the string table, or -1 if the name is null
+ */
+public class MappedDataSet {
+
+    public static final int MAGIC = 0x53445454; // "TTDS" in little-endian
+    public static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 10;
+    private static final int TEACHER_INTS = 2;
+    private static final int TIME_SLOT_INTS = 5;
+    private static final int ROOM_INTS = 2;
+    private static final int CLASS_INTS = 3;
+
+    private final int nTeacher, nTimeSlot, nRoom, nClass, nString;
+
+    private final IntBuffer teachers;
+    private final IntBuffer preferedTimeSlotStart, preferedTimeSlotIds;
+    private final IntBuffer preferedRoomStart, preferedRoomIds;
+    private final IntBuffer timeSlots;
+    private final IntBuffer rooms;
+    private final IntBuffer classes;
+    private final IntBuffer stringStart;
+    private final ByteBuffer stringBytes;
+
+    private volatile DataSetIndex index;
+
+    /**
+     * Constructor
+     * @param buffer: content of a binary dataset file
+     */
+    private MappedDataSet(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.capacity() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary dataset file");
+        }
+        int version = buffer.getInt(4);
+        if(version != VERSION) {
+            throw new IOException("Unsupported binary dataset version " + version + ", expected " + VERSION);
+        }
+
+        nTeacher = buffer.getInt(8);
+        nTimeSlot = buffer.getInt(12);
+        nRoom = buffer.getInt(16);
+        nClass = buffer.getInt(20);
+        int nPreferedTimeSlot = buffer.getInt(24);
+        int nPreferedRoom = buffer.getInt(28);
+        nString = buffer.getInt(32);
+        int nStringByte = buffer.getInt(36);
+
+        long[] sizes = {
+            (long) nTeacher * TEACHER_INTS,
+            nTeacher + 1L, nPreferedTimeSlot,
+            nTeacher + 1L, nPreferedRoom,
+            (long) nTimeSlot * TIME_SLOT_INTS,
+            (long) nRoom * ROOM_INTS,
+            (long) nClass * CLASS_INTS,
+            nString + 1L
+        };
+        long expected = HEADER_INTS * 4L + nStringByte;
+        for(long size : sizes) {
+            if(size < 0) throw new IOException("Corrupted binary dataset header");
+            expected += size * 4;
+        }
+        if(nStringByte < 0 || expected != buffer.capacity()) {
+            throw new IOException("Corrupted binary dataset: expected " + expected + " bytes but found " + buffer.capacity());
+        }
+
+        int[] position = {HEADER_INTS * 4};
+        teachers = section(buffer, position, sizes[0]);
+        preferedTimeSlotStart = section(buffer, position, sizes[1]);
+        preferedTimeSlotIds = section(buffer, position, sizes[2]);
+        preferedRoomStart = section(buffer, position, sizes[3]);
+        preferedRoomIds = section(buffer, position, sizes[4]);
+        timeSlots = section(buffer, position, sizes[5]);
+        rooms = section(buffer, position, sizes[6]);
+        classes = section(buffer, position, sizes[7]);
+        stringStart = section(buffer, position, sizes[8]);
+
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(position[0]);
+        stringBytes = bytes.slice();
+
+        checkStarts(preferedTimeSlotStart, nPreferedTimeSlot);
+        checkStarts(preferedRoomStart, nPreferedRoom);
+        checkStarts(stringStart, nStringByte);
+        checkNames(teachers, TEACHER_INTS, 1, nString);
+        checkNames(rooms, ROOM_INTS, 0, nString);
+        checkNames(classes, CLASS_INTS, 0, nString);
+    }
+
+    /**
+     * Check that the starts of the lists in a CSR section go from 0 to the size of the section without decreasing
+     * @param start: starts of the lists, with the end of the last one
+     * @param size: size of the section
+     */
+    private static void checkStarts(IntBuffer start, int size) throws IOException {
+        int previous = 0;
+        for(int k = 0; k < start.limit(); k++) {
+            int value = start.get(k);
+            if(value < previous || (k == 0 && value != 0)) throw new IOException("Corrupted binary dataset list starts");
+            previous = value;
+        }
+        if(previous != size) throw new IOException("Corrupted binary dataset list starts");
+    }
+
+    /**
+     * Check that the names of a section of records are -1 or strings of the string table
+     * @param records: section of records
+     * @param recordInts: number of ints of a record
+     * @param offset: position of the name in a record
+     * @param nString: number of strings in the string table
+     */
+    private static void checkNames(IntBuffer records, int recordInts, int offset, int nString) throws IOException {
+        for(int k = offset; k < records.limit(); k += recordInts) {
+            int ref = records.get(k);
+            if(ref < -1 || ref >= nString) throw new IOException("Corrupted binary dataset name " + ref);
+        }
+    }
+
+    /**
+     * View a section of ints of the buffer, without copying
+     * @param position: start of the section in bytes, moved to the end of the section
+     */
+    private static IntBuffer section(ByteBuffer buffer, int[] position, long size) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position[0]);
+        view.limit(position[0] + (int) size * 4);
+        position[0] += (int) size * 4;
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Open a binary dataset file by mapping it in memory
+     * @param path
+     * @return: dataset reading the mapped file
+     */
+    public static MappedDataSet open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary dataset larger than 2GB: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedDataSet(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write a dataset to a binary file
+     * @param dataSet
+     * @param path
+     */
+    public static void write(DataSet dataSet, Path path) throws IOException {
+        Teacher[] teacherList = dataSet.teachers;
+        int nString = teacherList.length + dataSet.rooms.length + dataSet.classes.length;
+
+        // encode the names first, the header holds the size of the string table
+        byte[][] names = new byte[nString][];
+        int k = 0;
+        for(Teacher teacher : teacherList) names[k++] = encode(teacher.getName());
+        for(Room room : dataSet.rooms) names[k++] = encode(room.getName());
+        for(Class_ cls : dataSet.classes) names[k++] = encode(cls.getName());
+
+        int nPreferedTimeSlot = 0, nPreferedRoom = 0, nStringByte = 0;
+        for(Teacher teacher : teacherList) {
+            nPreferedTimeSlot += teacher.getPreferedTimeSlotIds().length;
+            nPreferedRoom += teacher.getPreferedRoomIds().length;
+        }
+        for(byte[] name : names) {
+            if(name != null) nStringByte += name.length;
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter out = new ChannelWriter(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(teacherList.length);
+            out.putInt(dataSet.timeSlots.length);
+            out.putInt(dataSet.rooms.length);
+            out.putInt(dataSet.classes.length);
+            out.putInt(nPreferedTimeSlot);
+            out.putInt(nPreferedRoom);
+            out.putInt(nString);
+            out.putInt(nStringByte);
+
+            k = 0;
+            for(Teacher teacher : teacherList) {
+                out.putInt(teacher.getId());
+                out.putInt(names[k] == null? -1 : k);
+                k++;
+            }
+
+            int start = 0;
+            for(Teacher teacher : teacherList) {
+                out.putInt(start);
+                start += teacher.getPreferedTimeSlotIds().length;
+            }
+            out.putInt(start);
+            for(Teacher teacher : teacherList) {
+                for(int id : teacher.getPreferedTimeSlotIds()) out.putInt(id);
+            }
+
+            start = 0;
+            for(Teacher teacher : teacherList) {
+                out.putInt(start);
+                start += teacher.getPreferedRoomIds().length;
+            }
+            out.putInt(start);
+            for(Teacher teacher : teacherList) {
+                for(int id : teacher.getPreferedRoomIds()) out.putInt(id);
+            }
+
+            for(TimeSlot timeSlot : dataSet.timeSlots) {
+                out.putInt(timeSlot.getStartHour());
+                out.putInt(timeSlot.getStartMinute());
+                out.putInt(timeSlot.getEndHour());
+                out.putInt(timeSlot.getEndMinute());
+                out.putInt(timeSlot.getDayOfWeek());
+            }
+
+            for(Room room : dataSet.rooms) {
+                out.putInt(names[k] == null? -1 : k);
+                out.putInt(room.getCapacity());
+                k++;
+            }
+
+            for(Class_ cls : dataSet.classes) {
+                out.putInt(names[k] == null? -1 : k);
+                out.putInt(cls.getTeacherId());
+                out.putInt(cls.getNumberOfStudent());
+                k++;
+            }
+
+            start = 0;
+            for(byte[] name : names) {
+                out.putInt(start);
+                if(name != null) start += name.length;
+            }
+            out.putInt(start);
+            for(byte[] name : names) {
+                if(name != null) out.putBytes(name);
+            }
+            out.flush();
+        }
+    }
+
+    private static byte[] encode(String name) {
+        return name == null? null : name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered little-endian writer to a channel
+     */
+    private static class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        ChannelWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if(buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for(int offset = 0; offset < bytes.length; ) {
+                if(!buffer.hasRemaining()) flush();
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Read a name from the string table
+     * @param ref: index of the string, -1 for null
+     */
+    private String getString(int ref) {
+        if(ref < 0) return null;
+        int from = stringStart.get(ref), to = stringStart.get(ref + 1);
+        byte[] bytes = new byte[to - from];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = stringBytes.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * getter
+     * @return number of teachers
+     */
+    public int getTeacherCount() {
+        return nTeacher;
+    }
+
+    /**
+     * getter
+     * @return number of time slots
+     */
+    public int getTimeSlotCount() {
+        return nTimeSlot;
+    }
+
+    /**
+     * getter
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return nRoom;
+    }
+
+    /**
+     * getter
+     * @return number of classes
+     */
+    public int getClassCount() {
+        return nClass;
+    }
+
+    /**
+     * Get the id of a teacher
+     * @param t: position of the teacher
+     */
+    public int getTeacherId(int t) {
+        return teachers.get(t * TEACHER_INTS);
+    }
+
+    /**
+     * Get the name of a teacher
+     * @param t: position of the teacher
+     */
+    public String getTeacherName(int t) {
+        return getString(teachers.get(t * TEACHER_INTS + 1));
+    }
+
+    /**
+     * Get the number of prefered time slots of a teacher
+     * @param t: position of the teacher
+     */
+    public int getPreferedTimeSlotCount(int t) {
+        return preferedTimeSlotStart.get(t + 1) - preferedTimeSlotStart.get(t);
+    }
+
+    /**
+     * Get a prefered time slot of a teacher
+     * @param t: position of the teacher
+     * @param k: position in the teacher's list
+     */
+    public int getPreferedTimeSlotId(int t, int k) {
+        return preferedTimeSlotIds.get(preferedTimeSlotStart.get(t) + k);
+    }
+
+    /**
+     * Get the number of prefered rooms of a teacher
+     * @param t: position of the teacher
+     */
+    public int getPreferedRoomCount(int t) {
+        return preferedRoomStart.get(t + 1) - preferedRoomStart.get(t);
+    }
+
+    /**
+     * Get a prefered room of a teacher
+     * @param t: position of the teacher
+     * @param k: position in the teacher's list
+     */
+    public int getPreferedRoomId(int t, int k) {
+        return preferedRoomIds.get(preferedRoomStart.get(t) + k);
+    }
+
+    /**
+     * Get the start hour of a time slot
+     * @param s: position of the time slot
+     */
+    public int getStartHour(int s) {
+        return timeSlots.get(s * TIME_SLOT_INTS);
+    }
+
+    /**
+     * Get the start minute of a time slot
+     * @param s: position of the time slot
+     */
+    public int getStartMinute(int s) {
+        return timeSlots.get(s * TIME_SLOT_INTS + 1);
+    }
+
+    /**
+     * Get the end hour of a time slot
+     * @param s: position of the time slot
+     */
+    public int getEndHour(int s) {
+        return timeSlots.get(s * TIME_SLOT_INTS + 2);
+    }
+
+    /**
+     * Get the end minute of a time slot
+     * @param s: position of the time slot
+     */
+    public int getEndMinute(int s) {
+        return timeSlots.get(s * TIME_SLOT_INTS + 3);
+    }
+
+    /**
+     * Get the day of week of a time slot
+     * @param s: position of the time slot
+     */
+    public int getDayOfWeek(int s) {
+        return timeSlots.get(s * TIME_SLOT_INTS + 4);
+    }
+
+    /**
+     * Get the name of a room
+     * @param r: position of the room
+     */
+    public String getRoomName(int r) {
+        return getString(rooms.get(r * ROOM_INTS));
+    }
+
+    /**
+     * Get the capacity of a room
+     * @param r: position of the room
+     */
+    public int getRoomCapacity(int r) {
+        return rooms.get(r * ROOM_INTS + 1);
+    }
+
+    /**
+     * Get the name of a class
+     * @param c: position of the class
+     */
+    public String getClassName(int c) {
+        return getString(classes.get(c * CLASS_INTS));
+    }
+
+    /**
+     * Get the teacher id of a class
+     * @param c: position of the class
+     */
+    public int getClassTeacherId(int c) {
+        return classes.get(c * CLASS_INTS + 1);
+    }
+
+    /**
+     * Get the number of students of a class
+     * @param c: position of the class
+     */
+    public int getClassNumberOfStudent(int c) {
+        return classes.get(c * CLASS_INTS + 2);
+    }
+
+    /**
+     * Get the normalized view of the dataset for the solvers, built from the mapping on first use and validated.
+     * The object model is not built, so names are never decoded
+     * @return: view of the dataset
+     * @throws IllegalArgumentException: if the dataset is not consistent
+     */
+    public DataSetIndex getIndex() {
+        DataSetIndex result = index;
+        if(result == null) {
+            synchronized(this) {
+                result = index;
+                if(result == null) {
+                    result = new DataSetIndex(this);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copy the data into a DataSet, for the solvers working on the object model
+     * @return: dataset
+     */
+    public DataSet toDataSet() {
+        Teacher[] teacherList = new Teacher[nTeacher];
+        for(int t = 0; t < nTeacher; t++) {
+            int[] preferedTimeSlots = new int[getPreferedTimeSlotCount(t)];
+            for(int k = 0; k < preferedTimeSlots.length; k++) preferedTimeSlots[k] = getPreferedTimeSlotId(t, k);
+            int[] preferedRooms = new int[getPreferedRoomCount(t)];
+            for(int k = 0; k < preferedRooms.length; k++) preferedRooms[k] = getPreferedRoomId(t, k);
+            teacherList[t] = new Teacher(getTeacherId(t), getTeacherName(t), preferedTimeSlots, preferedRooms);
+        }
+
+        TimeSlot[] timeSlotList = new TimeSlot[nTimeSlot];
+        for(int s = 0; s < nTimeSlot; s++) {
+            timeSlotList[s] = new TimeSlot(getStartHour(s), getStartMinute(s), getEndHour(s), getEndMinute(s), getDayOfWeek(s));
+        }
+
+        Room[] roomList = new Room[nRoom];
+        for(int r = 0; r < nRoom; r++) {
+            roomList[r] = new Room(getRoomName(r), getRoomCapacity(r));
+        }
+
+        Class_[] classList = new Class_[nClass];
+        for(int c = 0; c < nClass; c++) {
+            classList[c] = new Class_(getClassName(c), getClassTeacherId(c), getClassNumberOfStudent(c));
+        }
+
+        return new DataSet(teacherList, timeSlotList, roomList, classList);
+    }
+}
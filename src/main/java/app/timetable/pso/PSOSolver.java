@@ -0,0 +1,45 @@
+package app.timetable.pso;
+
+import java.util.Random;
+
+import app.timetable.SolverBudget;
+import app.timetable.SolverResult;
+import app.timetable.TimetableSolver;
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+import util.RandomStreams;
+
+/**
+ * Particle swarm optimization as a TimetableSolver, for the hard constraint problem.
+ * An iteration is one epoch, the particles are moved on the calling thread
+ **/
+public class PSOSolver implements TimetableSolver {
+    
+    @Override
+    public String getName() {
+        return "pso";
+    }
+    
+    @Override
+    public SolverResult solve(DataSet dataSet, long seed, SolverBudget budget, CancellationToken cancellationToken) {
+        long start = System.nanoTime();
+        RandomStreams streams = new RandomStreams(seed);
+        
+        PsoAttributes psoAttributes = new PsoAttributes();
+        if(budget.maxIterations > 0) psoAttributes.maxEpochs = (int) Math.min(budget.maxIterations, Integer.MAX_VALUE);
+        psoAttributes.targetFitness = budget.targetScore;
+        psoAttributes.cancellationToken = budget.tokenFor(cancellationToken);
+        psoAttributes.verbose = false;
+        
+        Random rand = streams.forWorker(1);
+        SolutionManager routeManager = new SolutionManager(rand, new SolutionUpdater(streams.forWorker(2)));
+        SwarmOptimizer swarmOptimizer = new SwarmOptimizer(new ParticleOptimizer(rand, routeManager), streams.forWorker(0));
+        
+        Particle[] swarm = swarmOptimizer.buildSwarm(psoAttributes, dataSet);
+        swarmOptimizer.optimize(swarm, psoAttributes);
+        Solution best = swarmOptimizer.getBestSolution();
+        
+        return new SolverResult(getName(), best.encoded.clone(), best.fitness,
+                                swarmOptimizer.getEpochs(), (System.nanoTime() - start) / 1000000);
+    }
+}
@@ -9,10 +9,15 @@ public class Particle {
     public Solution currentRoute, localBestRoute, personalBestRoute;
     private ParticleOptimizer tspParticleOptimiser;
     
+    // buffer receiving the next position, swapped with the current one after each move
+    private int[] nextEncoded;
+    
     public Particle(Solution route, ParticleOptimizer tspParticleOptimizer) {
         this.currentRoute = route;
         this.tspParticleOptimiser = tspParticleOptimizer;
         this.personalBestRoute = route.clone();
+        this.localBestRoute = route.clone();
+        this.nextEncoded = new int[route.encoded.length];
         this.informersList = new ArrayList<>();
     }
     
@@ -20,26 +25,42 @@ public class Particle {
         Solution tmp = personalBestRoute;
         
         for(Particle particle : informersList) {
-            if(tmp.fitness > particle.personalBestRoute.fitness) {
+            if(particle.personalBestRoute.fitness > tmp.fitness) {
                 tmp = particle.personalBestRoute;
             }
         }
-        return tmp.clone();
+        return tmp;
     }
     
     public double optimize(PsoAttributes psoAttributes) {
-        
-        localBestRoute = getLocalBestRoute();
-        
-        currentRoute.encoded = tspParticleOptimiser.getOptimizedDestinationIndex(
-                currentRoute, personalBestRoute, localBestRoute, psoAttributes);
+        updateLocalBest();
+        return move(psoAttributes, tspParticleOptimiser);
+    }
+    
+    /**
+     * Take a snapshot of the best personal solution among the informers.
+     * Called for all particles before any of them moves, so that particles can then move concurrently
+     **/
+    public void updateLocalBest() {
+        getLocalBestRoute().copyTo(localBestRoute);
+    }
+    
+    /**
+     * Move the particle towards its personal and local best solutions
+     * @param psoAttributes
+     * @param optimizer: optimizer of the worker thread moving this particle
+     * @return fitness of the new position
+     **/
+    public double move(PsoAttributes psoAttributes, ParticleOptimizer optimizer) {
+        int[] previous = currentRoute.encoded;
+        currentRoute.encoded = optimizer.getOptimizedDestinationIndex(
+                currentRoute, personalBestRoute, localBestRoute, psoAttributes, nextEncoded);
+        nextEncoded = previous;
         
         double currentFitness = currentRoute.calcFitness();
         
-        if(currentFitness > personalBestRoute.calcFitness()) {
-            System.arraycopy(currentRoute.encoded, 0, 
-                                personalBestRoute.encoded, 0, 
-                                personalBestRoute.encoded.length);
+        if(currentFitness > personalBestRoute.fitness) {
+            currentRoute.copyTo(personalBestRoute);
         }
         return currentFitness;
     }
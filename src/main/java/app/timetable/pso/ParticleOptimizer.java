@@ -6,6 +6,7 @@ public class ParticleOptimizer {
 
     private Random rand;
     private SolutionManager routeManager;
+    private Solution[] sections = new Solution[3];
     
     public ParticleOptimizer(Random rand, SolutionManager routeManager) {
         this.rand = rand;
@@ -13,6 +14,11 @@ public class ParticleOptimizer {
     }
     
     public int[] getOptimizedDestinationIndex(Solution currRoute, Solution pBRoute, Solution lBRoute, PsoAttributes psoAttribs) {
+        return getOptimizedDestinationIndex(currRoute, pBRoute, lBRoute, psoAttribs, new int[currRoute.encoded.length]);
+    }
+    
+    public int[] getOptimizedDestinationIndex(Solution currRoute, Solution pBRoute, Solution lBRoute, PsoAttributes psoAttribs,
+                                              int[] target) {
         double currV = routeManager.updateVelocity(currRoute, psoAttribs.w, 1);
         double pBV = routeManager.updateVelocity(pBRoute, psoAttribs.c1, rand.nextDouble());
         double lBV = routeManager.updateVelocity(lBRoute, psoAttribs.c2, rand.nextDouble());
@@ -21,6 +27,9 @@ public class ParticleOptimizer {
         currRoute.segmentSize = routeManager.getSectionSize(currRoute, currV, totalVelocity);
         pBRoute.segmentSize = routeManager.getSectionSize(pBRoute, pBV, totalVelocity);
         lBRoute.segmentSize = routeManager.getSectionSize(lBRoute, lBV, totalVelocity);
-        return routeManager.addSections(new Solution[] { lBRoute, pBRoute, currRoute });
+        sections[0] = lBRoute;
+        sections[1] = pBRoute;
+        sections[2] = currRoute;
+        return routeManager.addSections(sections, target);
     }    
 }
@@ -1,5 +1,7 @@
 package app.timetable.pso;
 
+import util.CancellationToken;
+
 /**
  * Attribute parameters for particle swarm optimization
  **/
@@ -20,4 +22,13 @@ public class PsoAttributes {
     
     public double w = 0.5;
     
+    // stop when the best fitness reaches this value
+    public double targetFitness = Double.POSITIVE_INFINITY;
+    
+    // polled after each epoch to stop the run early, null to never stop early
+    public CancellationToken cancellationToken;
+    
+    // print the best fitness every 100 epochs
+    public boolean verbose = true;
+    
 }
@@ -1,10 +1,7 @@
 package app.timetable.pso;
 
-import java.util.HashSet;
-import java.util.Set;
-
+import app.timetable.TimetableEvaluator;
 import app.timetable.model.DataSet;
-import app.timetable.model.Teacher;
 
 /**
  * A solution for the time table problem
@@ -13,6 +10,7 @@ public class Solution {
 
     public int[] encoded;
     private DataSet dataSet;
+    private TimetableEvaluator evaluator;
     
     public double fitness;
     
@@ -25,31 +23,32 @@ public class Solution {
      */
     public Solution(DataSet dataSet, int[] encoded) {
         this.dataSet = dataSet;
+        this.evaluator = TimetableEvaluator.of(dataSet);
         this.encoded = encoded;
         this.calcFitness();
         segmentSize = -1;
     }
     
+    /**
+     * Constructor for a solution whose fitness is already known
+     * @param dataSet
+     * @param encoded
+     * @param fitness: fitness of encoded
+     */
+    public Solution(DataSet dataSet, int[] encoded, double fitness) {
+        this.dataSet = dataSet;
+        this.evaluator = TimetableEvaluator.of(dataSet);
+        this.encoded = encoded;
+        this.fitness = fitness;
+        segmentSize = -1;
+    }
+    
     /**
      * Calculate fitness of the solution
      * @return: fitness
      */
     public double calcFitness() {
-        double score = 0;
-        for(Teacher teacher : dataSet.teachers) {
-            Set<Integer> timeSlotIds = new HashSet<>();
-            for(int i = 0; i < dataSet.classes.length; i++) {
-                if(dataSet.classes[i].getTeacherId() == teacher.getId()) {
-                    int roomId = encoded[i] / dataSet.timeSlots.length;
-                    int timeSlotId = encoded[i] % dataSet.timeSlots.length;
-                    if(dataSet.rooms[roomId].getCapacity() >= dataSet.classes[i].getNumberOfStudent()) {
-                        timeSlotIds.add(timeSlotId);
-                    }
-                }
-            }
-            score += timeSlotIds.size();
-        }
-        this.fitness = score;
+        this.fitness = evaluator.hardFitness(encoded);
         return this.fitness;
     }
     
@@ -60,15 +59,18 @@ public class Solution {
     public Solution clone() {
         int[] tmp = new int[encoded.length];
         System.arraycopy(encoded, 0, tmp, 0, tmp.length);
-        return new Solution(dataSet, tmp);
+        return new Solution(dataSet, tmp, fitness);
     }
     
     /**
-     * Copy internal values to another solution
+     * Copy internal values to another solution, reusing its encoded array when it has the same size
      */
     public void copyTo(Solution target) {
         target.dataSet = dataSet;
-        target.encoded = new int[encoded.length];
+        target.evaluator = evaluator;
+        if(target.encoded == null || target.encoded.length != encoded.length) {
+            target.encoded = new int[encoded.length];
+        }
         System.arraycopy(encoded, 0, target.encoded, 0, encoded.length);
         target.fitness = fitness;
     }
@@ -26,6 +26,16 @@ public class SolutionManager {
      * @return: new generated indexes
      **/
     public int[] addSections(Solution[] sections) {
+        return addSections(sections, new int[sections[0].encoded.length]);
+    }
+    
+    /**
+     * Generate a new indexes array from a set of section, without allocating
+     * @param sections: the set of section contains 3 item: local best item, personal best item & the current item
+     * @param target: array receiving the new indexes, must not be the encoded array of a section
+     * @return: target
+     **/
+    public int[] addSections(Solution[] sections, int[] target) {
 
         if(!routeUpdater.isinitialised) {
             routeUpdater.initialise(sections[0].encoded.length, sections[0].getNmax());
@@ -35,7 +45,7 @@ public class SolutionManager {
             routeUpdater.addSection(rand.nextInt(sections[i].encoded.length), sections[i]);
         }
         
-        return routeUpdater.finalizeIndexes(sections[0]);
+        return routeUpdater.finalizeIndexes(sections[0], target);
     }
     
     /**
@@ -1,5 +1,6 @@
 package app.timetable.pso;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -7,12 +8,29 @@ import java.util.Random;
  **/
 public class SolutionUpdater {
 
-    public boolean[] availabilityMask;
+    // index i is taken in the current update if usedStamp[i] == generation, so the mask is reset by a new generation
+    private int[] usedStamp;
+    private int generation;
     private int[] encoded;
     private int Nmax;
     public boolean isinitialised;
     private int indexPointer;
-    private Random rand = new Random();
+    private Random rand;
+    
+    /**
+     * Constructor
+     **/
+    public SolutionUpdater() {
+        this(new Random());
+    }
+    
+    /**
+     * Constructor
+     * @param rand: random generator, seeded to make a run reproducible
+     **/
+    public SolutionUpdater(Random rand) {
+        this.rand = rand;
+    }
     
     /**
      * Initialise the updater
@@ -21,8 +39,8 @@ public class SolutionUpdater {
      **/
     public void initialise(int nClass, int Nmax) {
         this.Nmax = Nmax;
-        this.availabilityMask = new boolean[Nmax];
-        for(int i = 0; i < Nmax; i++) this.availabilityMask[i] = true;
+        this.usedStamp = new int[Nmax];
+        this.generation = 1;
         
         this.encoded = new int[nClass];
         this.indexPointer = 0;
@@ -38,41 +56,59 @@ public class SolutionUpdater {
 
         for(int i = 0; i < section.segmentSize; i++) {
             int index = section.encoded[pointer];
-            if(availabilityMask[index]) {
+            if(isAvailable(index)) {
                 encoded[indexPointer++] = index;
-                availabilityMask[index] = false;
+                usedStamp[index] = generation;
             }
             pointer  = (pointer + 1) % section.encoded.length;
         }            
     }
     
+    /**
+     * Check whether an index is not taken yet in the current update
+     * @param index
+     **/
+    private boolean isAvailable(int index) {
+        return usedStamp[index] != generation;
+    }
+    
     /**
      * Complete the encoded array with values from a solution
      * @param solution: solution
      * @return: the finalized indexes
      **/
     public int[] finalizeIndexes(Solution solution) {        
+        return finalizeIndexes(solution, new int[encoded.length]);
+    }
+    
+    /**
+     * Complete the encoded array with values from a solution, without allocating
+     * @param solution: solution
+     * @param target: array receiving the finalized indexes, must not be the encoded array of a section
+     * @return: target
+     **/
+    public int[] finalizeIndexes(Solution solution, int[] target) {        
         int pointer = 0;
         
         if(this.encoded.length < this.Nmax) {
             pointer = rand.nextInt(this.Nmax - this.encoded.length);
         }
         
-        for(int i = 0; i < solution.encoded.length; i++) {
+        for(int i = 0; i < solution.encoded.length && indexPointer < encoded.length; i++) {
             int index = solution.encoded[pointer % solution.encoded.length];
             
-            if(availabilityMask[index]) {
+            if(isAvailable(index)) {
                 encoded[indexPointer++] = index;
-                if(indexPointer >= encoded.length) break;
             }
             
             pointer++;
             
         }
         
+        System.arraycopy(encoded, 0, target, 0, encoded.length);
         reset();
         
-        return getIndexes();
+        return target;
         
     }
     
@@ -87,10 +123,14 @@ public class SolutionUpdater {
     
 
     /**
-     * Reset the availability mask
+     * Reset the availability mask, in O(1) by starting a new generation
      **/
     public void reset() {
         indexPointer = 0;
-        for(int i = 0; i < availabilityMask.length; i++) availabilityMask[i] = true;
+        if(++generation == 0) {
+            // stamps wrapped around, clear them once every 2^32 updates
+            Arrays.fill(usedStamp, 0);
+            generation = 1;
+        }
     }    
 }
@@ -3,6 +3,10 @@ package app.timetable.pso;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import app.timetable.model.DataSet;
 import util.CombinationUtil;
@@ -12,9 +16,11 @@ import util.CombinationUtil;
  **/
 public class SwarmOptimizer {
 
-    private ParticleOptimizer optimizer;
+    private ParticleOptimizer[] workers;
+    private ExecutorService executor;
     private Random rand;
     private Solution bestGlobalItem;
+    private int epochs;
     
     /**
      * Constructor
@@ -22,8 +28,20 @@ public class SwarmOptimizer {
      * @param rand
      **/
     public SwarmOptimizer(ParticleOptimizer optimizer, Random rand) {
-        this.optimizer = optimizer;
+        this(new ParticleOptimizer[] {optimizer}, rand, null);
+    }
+    
+    /**
+     * Constructor
+     * Particle i is always moved by worker i % workers.length, so a run does not depend on thread scheduling
+     * @param workers: one optimizer per worker, each with its own SolutionManager, SolutionUpdater and random generator
+     * @param rand: random generator of the swarm
+     * @param executor: threads running the workers, null to run them one after the other on the calling thread
+     **/
+    public SwarmOptimizer(ParticleOptimizer[] workers, Random rand, ExecutorService executor) {
+        this.workers = workers;
         this.rand = rand;
+        this.executor = executor;
     }
     
     /**
@@ -35,7 +53,7 @@ public class SwarmOptimizer {
     public Particle[] buildSwarm(PsoAttributes psoAttributes, DataSet dataSet) {
         Particle[] swarm = new Particle[psoAttributes.swarmSize];
         for(int i = 0; i < swarm.length; i++) {
-            swarm[i] = new Particle(getNewSolution(dataSet), optimizer);
+            swarm[i] = new Particle(getNewSolution(dataSet), workers[i % workers.length]);
         }
         int[] particleIndex = initArray(psoAttributes.swarmSize);
         updateInformers(swarm, particleIndex, psoAttributes.maxInformers);
@@ -50,7 +68,7 @@ public class SwarmOptimizer {
     public Solution getNewSolution(DataSet dataSet) {
         int N = dataSet.timeSlots.length * dataSet.rooms.length;
         int K = dataSet.classes.length;
-        int[] encoded = CombinationUtil.genCombination(N, K);        
+        int[] encoded = CombinationUtil.genCombination(N, K, rand);        
         return new Solution(dataSet, encoded);
     }
     
@@ -103,19 +121,40 @@ public class SwarmOptimizer {
         int epoch = 0;
         int staticEpochs = 0;
         
-        while (epoch < psoAttributes.maxEpochs)
+        double[] fitness = new double[swarm.length];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for(int w = 0; w < workers.length; w++) {
+            int worker = w;
+            tasks.add(() -> {
+                for(int i = worker; i < swarm.length; i += workers.length) {
+                    fitness[i] = swarm[i].move(psoAttributes, workers[worker]);
+                }
+                return null;
+            });
+        }
+        
+        while (epoch < psoAttributes.maxEpochs && bestGlobalItem.fitness < psoAttributes.targetFitness)
         {
-            if(epoch % 100 == 0) {
+            if(psoAttributes.cancellationToken != null && psoAttributes.cancellationToken.isCancelled()) {
+                break;
+            }
+            
+            if(psoAttributes.verbose && epoch % 100 == 0) {
                 System.out.println(String.format("Epoch %d, fitness: %f", epoch, bestGlobalItem.fitness));
             }
             
-            boolean isFitnessImproved = false;
+            // snapshot the local bests, then move all particles, then reduce the global best in particle order
             for(Particle particle : swarm) {
-                double fitness = particle.optimize(psoAttributes);
-                
-                if (fitness > bestGlobalItem.fitness)
+                particle.updateLocalBest();
+            }
+            
+            runWorkers(tasks);
+            
+            boolean isFitnessImproved = false;
+            for(int i = 0; i < swarm.length; i++) {
+                if (fitness[i] > bestGlobalItem.fitness)
                 {
-                    particle.currentRoute.copyTo(bestGlobalItem);
+                    swarm[i].currentRoute.copyTo(bestGlobalItem);
                     isFitnessImproved = true;                   
                 }
             }
@@ -132,9 +171,47 @@ public class SwarmOptimizer {
             epoch++;            
         }
         
+        epochs = epoch;
         return (int) bestGlobalItem.fitness;
     }
     
+    /**
+     * Get the best solution of the last run
+     **/
+    public Solution getBestSolution() {
+        return bestGlobalItem;
+    }
+    
+    /**
+     * Get the number of epochs of the last run
+     **/
+    public int getEpochs() {
+        return epochs;
+    }
+    
+    /**
+     * Run the tasks of the workers and wait for all of them
+     * @param tasks
+     **/
+    private void runWorkers(List<Callable<Void>> tasks) {
+        try {
+            if(executor == null) {
+                for(Callable<Void> task : tasks) task.call();
+                return;
+            }
+            for(Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
     /**
      * Shuffle an array
      * @param arr
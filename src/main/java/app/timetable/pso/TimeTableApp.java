@@ -2,13 +2,22 @@ package app.timetable.pso;
 
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import app.timetable.model.DataSet;
+import util.RandomStreams;
 
 /**
  * Solving time table with particle swarm optimization
  **/
 public class TimeTableApp {
     
+    // number of logical workers, fixed so the split of the particles and their streams,
+    // and therefore a run, only depend on the seed and not on the number of processors
+    private static final int N_WORKER = 8;
+    
+    private static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    private static int runIndex = 0;
     
     /**
      * Running all benchmarks 
@@ -16,20 +25,32 @@ public class TimeTableApp {
     
     public static void run(String dataSetPath) throws IOException {
         DataSet dataSet =  new DataSet(dataSetPath);
-        Random rand = new Random();
+        RandomStreams runStreams = streams.child(runIndex++);
+        Random rand = runStreams.forWorker(0);
         PsoAttributes psoAttributes = new PsoAttributes();
         
-        SolutionUpdater routeUpdater = new SolutionUpdater();
-        SolutionManager routeManager = new SolutionManager(rand, routeUpdater);
-        ParticleOptimizer optimizer = new ParticleOptimizer(rand, routeManager);
-        SwarmOptimizer swarmOptimizer = new SwarmOptimizer(optimizer, rand);
-        SwarmManager swarmManager = new SwarmManager(swarmOptimizer);
+        // each logical worker owns its optimizer, updater and random streams
+        ParticleOptimizer[] workers = new ParticleOptimizer[N_WORKER];
+        for(int w = 0; w < N_WORKER; w++) {
+            Random workerRand = runStreams.forWorker(2*w + 1);
+            SolutionUpdater routeUpdater = new SolutionUpdater(runStreams.forWorker(2*w + 2));
+            SolutionManager routeManager = new SolutionManager(workerRand, routeUpdater);
+            workers[w] = new ParticleOptimizer(workerRand, routeManager);
+        }
         
-        for(int k = 0;  k < 10; k++) {
-            System.out.println("Run " + (k+1));
-            Particle[] swarm = swarmManager.buildSwarm(psoAttributes, dataSet);
-            int fitness = swarmManager.optimize(swarm,psoAttributes);
-            System.out.println("fitness:" + fitness);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(N_WORKER, Runtime.getRuntime().availableProcessors()));
+        try {
+            SwarmOptimizer swarmOptimizer = new SwarmOptimizer(workers, rand, executor);
+            SwarmManager swarmManager = new SwarmManager(swarmOptimizer);
+            
+            for(int k = 0;  k < 10; k++) {
+                System.out.println("Run " + (k+1));
+                Particle[] swarm = swarmManager.buildSwarm(psoAttributes, dataSet);
+                int fitness = swarmManager.optimize(swarm,psoAttributes);
+                System.out.println("fitness:" + fitness);
+            }
+        }finally {
+            executor.shutdown();
         }
     }
     
@@ -39,6 +60,7 @@ public class TimeTableApp {
      */
     
     public static void main(String[] args) throws IOException {
+        System.out.println("Seed: " + streams.getMasterSeed());
         run("timetable/hard/160_classes.json");
         run("timetable/hard/200_classes.json");
         
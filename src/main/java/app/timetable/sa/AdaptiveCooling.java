@@ -0,0 +1,55 @@
+package app.timetable.sa;
+
+/**
+ * Geometric cooling whose rate follows the acceptance ratio.
+ * After each window of steps, the rate is doubled if more moves than the target ratio were accepted
+ * (the search is too hot to make progress) and halved otherwise (the search is freezing)
+ **/
+public class AdaptiveCooling implements CoolingSchedule
+{
+    private double initialRate, minRate, maxRate;
+    private double targetAcceptance;
+    private int window;
+
+    private double coolingRate;
+    private int steps, accepted;
+
+    /**
+     * Constructor
+     * @param coolingRate: initial fraction of the temperature removed at each step
+     * @param targetAcceptance: acceptance ratio to keep, between 0 and 1
+     * @param window: number of steps between two rate updates
+     */
+    public AdaptiveCooling(double coolingRate, double targetAcceptance, int window)
+    {
+        this.initialRate = coolingRate;
+        this.minRate = coolingRate / 64;
+        this.maxRate = Math.min(0.5, coolingRate * 64);
+        this.targetAcceptance = targetAcceptance;
+        this.window = window;
+        reset();
+    }
+
+    @Override
+    public double nextTemperature(double temperature, boolean accepted)
+    {
+        steps++;
+        if(accepted) this.accepted++;
+
+        if(steps == window) {
+            double ratio = (double) this.accepted / steps;
+            coolingRate = ratio > targetAcceptance? Math.min(maxRate, coolingRate * 2) : Math.max(minRate, coolingRate / 2);
+            steps = 0;
+            this.accepted = 0;
+        }
+        return temperature * (1 - coolingRate);
+    }
+
+    @Override
+    public void reset()
+    {
+        coolingRate = initialRate;
+        steps = 0;
+        accepted = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package app.timetable.sa;
+
+/**
+ * Temperature update of simulated annealing, applied after each step
+ **/
+public interface CoolingSchedule
+{
+    /**
+     * Calculate the temperature of the next step
+     * @param temperature: current temperature
+     * @param accepted: whether the move of the current step was accepted
+     * @return: temperature of the next step
+     */
+    double nextTemperature(double temperature, boolean accepted);
+
+    /**
+     * Forget the state of the schedule, called when a run starts and when the temperature is raised again
+     */
+    default void reset()
+    {
+    }
+}
@@ -0,0 +1,24 @@
+package app.timetable.sa;
+
+/**
+ * Geometric cooling, the temperature is multiplied by (1 - coolingRate) at each step
+ **/
+public class GeometricCooling implements CoolingSchedule
+{
+    private double coolingRate;
+
+    /**
+     * Constructor
+     * @param coolingRate: fraction of the temperature removed at each step
+     */
+    public GeometricCooling(double coolingRate)
+    {
+        this.coolingRate = coolingRate;
+    }
+
+    @Override
+    public double nextTemperature(double temperature, boolean accepted)
+    {
+        return temperature * (1 - coolingRate);
+    }
+}
@@ -0,0 +1,25 @@
+package app.timetable.sa;
+
+/**
+ * Lundy-Mees cooling, T' = T / (1 + beta * T)
+ * Cools fast at high temperatures and slowly at low ones, so most steps are spent near the end of the run
+ **/
+public class LundyMeesCooling implements CoolingSchedule
+{
+    private double beta;
+
+    /**
+     * Constructor
+     * @param beta: cooling parameter, going from T0 to T1 takes (1/T1 - 1/T0) / beta steps
+     */
+    public LundyMeesCooling(double beta)
+    {
+        this.beta = beta;
+    }
+
+    @Override
+    public double nextTemperature(double temperature, boolean accepted)
+    {
+        return temperature / (1 + beta * temperature);
+    }
+}
@@ -0,0 +1,220 @@
+package app.timetable.sa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+
+import app.timetable.TimetableEvaluator;
+import app.timetable.TimetableState;
+import app.timetable.model.DataSet;
+import util.RandomStreams;
+
+/**
+ * Optimizer using replica exchange simulated annealing (parallel tempering)
+ * Several chains run at fixed temperatures, one per thread. After each epoch, chains at neighbouring temperatures
+ * exchange their temperatures with the Metropolis criterion, so good solutions found by hot chains move down to cold ones
+ **/
+public class ReplicaExchangeOptimizer
+{
+    /**
+     * A Metropolis chain, run by one thread
+     */
+    private class Chain implements Runnable
+    {
+        final TimetableState state;
+        final Random rand;
+        final Solution bestSolution;
+        double bestFitness;
+        int level;
+
+        Chain(DataSet dataSet, Random rand, int level)
+        {
+            this.rand = rand;
+            this.level = level;
+            this.bestSolution = new Solution(dataSet, rand);
+            this.state = new TimetableState(evaluator, bestSolution.encoded, false);
+            this.bestFitness = state.getFitness();
+        }
+
+        /**
+         * Run Metropolis steps at the temperature of the chain until the exchanges stop
+         */
+        @Override
+        public void run()
+        {
+            try {
+                while(!phaser.isTerminated()) {
+                    double temperature = temperatures[level];
+                    for(int step = 0; step < exchangeInterval; step++) {
+                        int cls = (int)(rand.nextDouble() * nClass);
+                        int index = (int)(rand.nextDouble() * maxIndex);
+                        double delta = state.deltaMove(cls, index);
+                        if(delta >= 0 || Math.exp(delta / temperature) > rand.nextDouble()) {
+                            state.applyMove(cls, index);
+                            if(delta > 0 && state.getFitness() > bestFitness) {
+                                bestFitness = state.getFitness();
+                                state.copyAssignment(bestSolution.encoded);
+                            }
+                        }
+                    }
+                    phaser.arriveAndAwaitAdvance();
+                }
+            }finally {
+                // do not leave the other chains waiting for this one
+                if(!phaser.isTerminated()) phaser.forceTermination();
+            }
+        }
+    }
+
+    private TimetableEvaluator evaluator;
+    private int nClass, maxIndex;
+    private double[] temperatures;
+    private int exchangeInterval;
+    private double targetFitness;
+    private Chain[] chains;
+    private Random exchangeRand;
+    private Phaser phaser;
+    private int maxEpochs;
+    private long attemptedExchanges, acceptedExchanges;
+
+    /**
+     * Constructor
+     * @param dataSet
+     * @param nReplica: number of chains, each one runs on its own thread
+     * @param minTemperature: temperature of the coldest chain
+     * @param maxTemperature: temperature of the hottest chain, the others are spaced geometrically in between
+     * @param exchangeInterval: number of steps of each chain between two exchanges
+     * @param streams: random streams, chain i uses stream i and the exchanges use stream nReplica
+     */
+    public ReplicaExchangeOptimizer(DataSet dataSet, int nReplica, double minTemperature, double maxTemperature,
+                                    int exchangeInterval, RandomStreams streams)
+    {
+        this.evaluator = TimetableEvaluator.of(dataSet);
+        this.nClass = evaluator.getClassCount();
+        this.maxIndex = evaluator.getMaxIndex();
+        this.exchangeInterval = exchangeInterval;
+        this.targetFitness = nClass;
+
+        this.temperatures = new double[nReplica];
+        for(int k = 0; k < nReplica; k++) {
+            double ratio = nReplica > 1? (double) k / (nReplica - 1) : 0;
+            temperatures[k] = minTemperature * Math.pow(maxTemperature / minTemperature, ratio);
+        }
+
+        this.chains = new Chain[nReplica];
+        for(int k = 0; k < nReplica; k++) {
+            chains[k] = new Chain(dataSet, streams.forWorker(k), k);
+        }
+        this.exchangeRand = streams.forWorker(nReplica);
+    }
+
+    /**
+     * Set the fitness at which the run stops, by default all classes arranged
+     * @param targetFitness
+     */
+    public void setTargetFitness(double targetFitness)
+    {
+        this.targetFitness = targetFitness;
+    }
+
+    /**
+     * Run the optimizer
+     * @param maxEpochs: maximum number of exchange epochs
+     * @return: fitness of the best solution
+     **/
+    public double run(int maxEpochs)
+    {
+        if(getBestFitness() >= targetFitness || maxEpochs <= 0) return getBestFitness();
+
+        this.maxEpochs = maxEpochs;
+        this.phaser = new Phaser(chains.length) {
+            @Override
+            protected boolean onAdvance(int phase, int registeredParties) {
+                exchange(phase);
+                return phase + 1 >= ReplicaExchangeOptimizer.this.maxEpochs || getBestFitness() >= targetFitness;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(chains.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(Chain chain : chains) {
+                futures.add(executor.submit(chain));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            phaser.forceTermination();
+        }catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }finally {
+            executor.shutdown();
+        }
+
+        return getBestFitness();
+    }
+
+    /**
+     * Exchange the temperatures of chains at neighbouring levels, even pairs on even epochs and odd pairs on odd ones.
+     * Called by the last chain arriving at the end of an epoch, while the others wait
+     * @param epoch: index of the epoch
+     */
+    private void exchange(int epoch)
+    {
+        Chain[] atLevel = new Chain[chains.length];
+        for(Chain chain : chains) {
+            atLevel[chain.level] = chain;
+        }
+
+        for(int k = epoch % 2; k + 1 < atLevel.length; k += 2) {
+            Chain cold = atLevel[k], hot = atLevel[k + 1];
+            double gain = (hot.state.getFitness() - cold.state.getFitness()) * (1 / temperatures[k] - 1 / temperatures[k + 1]);
+            attemptedExchanges++;
+            if(gain >= 0 || Math.exp(gain) > exchangeRand.nextDouble()) {
+                cold.level = k + 1;
+                hot.level = k;
+                acceptedExchanges++;
+            }
+        }
+    }
+
+    /**
+     * Get the fitness of the best solution over all chains
+     **/
+    public double getBestFitness()
+    {
+        double best = Double.NEGATIVE_INFINITY;
+        for(Chain chain : chains) {
+            best = Math.max(best, chain.bestFitness);
+        }
+        return best;
+    }
+
+    /**
+     * Get the best solution over all chains
+     **/
+    public Solution getBestSolution()
+    {
+        Chain best = chains[0];
+        for(Chain chain : chains) {
+            if(chain.bestFitness > best.bestFitness) best = chain;
+        }
+        return best.bestSolution;
+    }
+
+    /**
+     * Get the rate of accepted exchanges
+     * @return: accepted exchanges over attempted exchanges
+     **/
+    public double getExchangeRate()
+    {
+        return attemptedExchanges > 0? (double) acceptedExchanges / attemptedExchanges : 0;
+    }
+}
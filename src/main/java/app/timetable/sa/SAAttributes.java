@@ -0,0 +1,40 @@
+package app.timetable.sa;
+
+import util.CancellationToken;
+
+/**
+ * Attribute parameters for simulated annealing
+ **/
+public class SAAttributes
+{
+    public double temperature = 10.0;
+
+    public double minTemperature = 1e-3;
+
+    // keeps state during a run, so one instance per optimizer
+    public CoolingSchedule coolingSchedule = new GeometricCooling(0.00002);
+
+    // stop after this number of iterations, 0 for no limit
+    public long maxIterations = 0;
+
+    // stop after this wall-clock time, 0 for no limit
+    public long timeBudgetMillis = 0;
+
+    // stop when the best fitness reaches this value
+    public double targetFitness = Double.POSITIVE_INFINITY;
+
+    // raise the temperature when the best fitness did not improve for this number of iterations, 0 to disable
+    public long reheatStagnantIterations = 0;
+
+    // temperature after reheating, as a fraction of the initial temperature
+    public double reheatRatio = 0.5;
+
+    // true for soft constraint fitness, false for hard constraint fitness
+    public boolean soft = false;
+
+    // polled with the clock to stop the run early, null to never stop early
+    public CancellationToken cancellationToken;
+
+    // print the fitness when it improves
+    public boolean verbose = true;
+}
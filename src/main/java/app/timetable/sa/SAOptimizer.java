@@ -1,5 +1,9 @@
 package app.timetable.sa;
 
+import java.util.Random;
+
+import app.timetable.TimetableEvaluator;
+import app.timetable.TimetableState;
 import app.timetable.model.DataSet;
 
 /**
@@ -7,8 +11,15 @@ import app.timetable.model.DataSet;
  **/
 public class SAOptimizer 
 {
-	private double temperature, coolingRate;
-	private Solution currentSolution, nextSolution, bestSolution;
+	private SAAttributes attributes;
+	private double temperature;
+	private Solution bestSolution;
+	private double bestFitness;
+	private TimetableState state;
+	private int maxIndex;
+	private Random rand;
+	private long iterations;
+	private int reheats;
 	
 	/**
      * Constructor
@@ -18,63 +29,158 @@ public class SAOptimizer
      */
 	public SAOptimizer(DataSet dataSet, double temperature, double coolingRate)
 	{
-		this.temperature = temperature;
-		this.coolingRate = coolingRate;
+		this(dataSet, temperature, coolingRate, new Random());
+	}
+	
+	/**
+     * Constructor
+     * @param dataSet
+     * @param temperature
+     * @param coolingRate
+     * @param rand: random generator, seeded to make a run reproducible
+     */
+	public SAOptimizer(DataSet dataSet, double temperature, double coolingRate, Random rand)
+	{
+		this(dataSet, geometric(temperature, coolingRate), rand);
+	}
+	
+	/**
+     * Constructor
+     * @param dataSet
+     * @param attributes: temperatures, cooling schedule, reheating and stopping conditions
+     * @param rand: random generator, seeded to make a run reproducible
+     */
+	public SAOptimizer(DataSet dataSet, SAAttributes attributes, Random rand)
+	{
+		this.attributes = attributes;
+		this.temperature = attributes.temperature;
+		this.rand = rand;
 		
-		this.currentSolution = new Solution(dataSet);
-		this.bestSolution = new Solution(this.currentSolution);
+		Solution initialSolution = new Solution(dataSet, rand);
+		TimetableEvaluator evaluator = TimetableEvaluator.of(dataSet);
+		this.state = new TimetableState(evaluator, initialSolution.encoded, attributes.soft);
+		this.maxIndex = evaluator.getMaxIndex();
+		this.bestSolution = initialSolution;
+		this.bestFitness = state.getFitness();
+	}
+	
+	/**
+	 * Attributes of a geometric cooling run
+	 **/
+	private static SAAttributes geometric(double temperature, double coolingRate)
+	{
+		SAAttributes attributes = new SAAttributes();
+		attributes.temperature = temperature;
+		attributes.coolingSchedule = new GeometricCooling(coolingRate);
+		return attributes;
 	}
 	
 	/**
-	 * Run the optimizer
+	 * Run the optimizer, until the temperature falls below the minimum, the best fitness reaches the target,
+	 * or the iteration or time budget is spent
 	 **/	
 	public double run()
 	{
+		int nClass = bestSolution.encoded.length;
+		CoolingSchedule coolingSchedule = attributes.coolingSchedule;
+		coolingSchedule.reset();
+		
+		long startTime = System.nanoTime();
+		long timeBudget = attributes.timeBudgetMillis * 1000000L;
+		long lastImprovement = iterations;
+		
 		// Run algorithm
-		while(this.temperature > 1e-3)
+		while(this.temperature > attributes.minTemperature && bestFitness < attributes.targetFitness)
 		{   
-			// Get new path
-			this.nextSolution = this.currentSolution.getNewSolution();
+			if(attributes.maxIterations > 0 && iterations >= attributes.maxIterations) break;
+			
+			// the clock is read every 1024 iterations, an iteration is much cheaper than a clock read
+			if((iterations & 1023) == 0) {
+				if(timeBudget > 0 && System.nanoTime() - startTime >= timeBudget) break;
+				if(attributes.cancellationToken != null && attributes.cancellationToken.isCancelled()) break;
+			}
+			
+			// Propose a move of a random class to a random room and time slot, swapping with the class there
+			int cls = (int)(rand.nextDouble() * nClass);
+			int index = (int)(rand.nextDouble() * maxIndex);
+			
+			// Fitness of the move, without applying it
+			double currentFitness = state.getFitness();
+			double newFitness = currentFitness + state.deltaMove(cls, index);
 			
-			// Calculate the fitness (distance)
-			double currentEnergy = this.currentSolution.calcFitness();
-			double newEnergy = this.nextSolution.calcFitness();
-			//System.out.println(currentEnergy + "," + newEnergy);
-			// Should we accept new path?
-			if(this.acceptByProbability(currentEnergy, newEnergy))
+			// Should we accept the move?
+			boolean accepted = this.acceptByProbability(currentFitness, newFitness);
+			if(accepted)
 			{
-				this.currentSolution = this.nextSolution;
+				state.applyMove(cls, index);
+				
+				// Keep track of best solution
+				if(newFitness > bestFitness)
+				{
+				    if(attributes.verbose) System.out.println("Fitness improved to:" + newFitness);
+				    bestFitness = newFitness;
+				    state.copyAssignment(bestSolution.encoded);
+				    lastImprovement = iterations;
+				}
 			}
 			
-			// Keep track of best solution
-			if(this.currentSolution.calcFitness() > this.bestSolution.calcFitness())
+			// Raise the temperature again when the search is stuck
+			if(attributes.reheatStagnantIterations > 0 && iterations - lastImprovement >= attributes.reheatStagnantIterations)
 			{
-			    System.out.println("Fitness improved to:" + this.currentSolution.calcFitness());
-				this.bestSolution = this.currentSolution;				
+				this.temperature = Math.max(this.temperature, attributes.temperature * attributes.reheatRatio);
+				coolingSchedule.reset();
+				lastImprovement = iterations;
+				reheats++;
 			}
 
 			// Drop the temperature
-			this.temperature *= (1 - coolingRate);
+			this.temperature = coolingSchedule.nextTemperature(this.temperature, accepted);
+			iterations++;
 		}
 		
-		return this.bestSolution.calcFitness();
+		return bestFitness;
+	}
+	
+	/**
+	 * Get the number of iterations run
+	 **/
+	public long getIterations()
+	{
+		return iterations;
+	}
+	
+	/**
+	 * Get the number of times the temperature was raised again
+	 **/
+	public int getReheats()
+	{
+		return reheats;
+	}
+	
+	/**
+	 * Get the best solution
+	 **/
+	public Solution getBestSolution()
+	{
+		return bestSolution;
 	}
 	
 	/**
-	 * Check whether to accept a new solution
+	 * Check whether to accept a new solution, better ones always are and worse ones with a probability
+	 * decreasing with the loss of fitness and the temperature
 	 * @param currentFitness 
 	 * @param newFitness
 	 * @return whether accept the new solution
 	 **/
 	public boolean acceptByProbability(double currentFitness, double newFitness)
 	{
-		if(newFitness < currentFitness)
+		if(newFitness >= currentFitness)
 			return true;
 		else
 		{
 			double delta = (newFitness - currentFitness);
 			double probability = Math.exp(delta/this.temperature);
-			return probability > Math.random();
+			return probability > rand.nextDouble();
 		}
 	}
 }
@@ -0,0 +1,51 @@
+package app.timetable.sa;
+
+import app.timetable.SolverBudget;
+import app.timetable.SolverResult;
+import app.timetable.TimetableSolver;
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+import util.RandomStreams;
+
+/**
+ * Simulated annealing as a TimetableSolver, an iteration is one proposed move
+ **/
+public class SASolver implements TimetableSolver
+{
+	private final boolean soft;
+	
+	/**
+	 * Constructor
+	 * @param soft: true for soft constraint fitness, false for hard constraint fitness
+	 **/
+	public SASolver(boolean soft)
+	{
+		this.soft = soft;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return soft? "sa-soft" : "sa";
+	}
+	
+	@Override
+	public SolverResult solve(DataSet dataSet, long seed, SolverBudget budget, CancellationToken cancellationToken)
+	{
+		long start = System.nanoTime();
+		
+		SAAttributes attributes = new SAAttributes();
+		attributes.soft = soft;
+		attributes.maxIterations = budget.maxIterations;
+		attributes.targetFitness = budget.targetScore;
+		attributes.cancellationToken = budget.tokenFor(cancellationToken);
+		attributes.reheatStagnantIterations = 100000;
+		attributes.verbose = false;
+		
+		SAOptimizer optimizer = new SAOptimizer(dataSet, attributes, new RandomStreams(seed).forWorker(0));
+		double score = optimizer.run();
+		
+		return new SolverResult(getName(), optimizer.getBestSolution().encoded.clone(), score,
+								optimizer.getIterations(), (System.nanoTime() - start) / 1000000);
+	}
+}
@@ -1,11 +1,9 @@
 package app.timetable.sa;
 
-import java.util.HashSet;
 import java.util.Random;
-import java.util.Set;
 
+import app.timetable.TimetableEvaluator;
 import app.timetable.model.DataSet;
-import app.timetable.model.Teacher;
 import util.CombinationUtil;
 
 /**
@@ -15,8 +13,7 @@ import util.CombinationUtil;
 public class Solution 
 {
     public int[] encoded;
-    private DataSet dataSet;
-    private Random rand = new Random();
+    private TimetableEvaluator evaluator;
     
     /**
      * Constructor
@@ -24,10 +21,20 @@ public class Solution
      */
 	public Solution(DataSet dataSet)
 	{
-	    this.dataSet = dataSet;
+	    this(dataSet, new Random());
+	}
+	
+	/**
+     * Constructor
+     * @param dataSet
+     * @param rand: random generator
+     */
+	public Solution(DataSet dataSet, Random rand)
+	{
+	    this.evaluator = TimetableEvaluator.of(dataSet);
 	    int N = dataSet.timeSlots.length * dataSet.rooms.length;
         int K = dataSet.classes.length;
-		this.encoded = CombinationUtil.genCombination(N, K);
+		this.encoded = CombinationUtil.genCombination(N, K, rand);
 	}
 	
 	/**
@@ -36,7 +43,7 @@ public class Solution
 	 **/
 	public Solution(Solution solution)
 	{
-		this.dataSet = solution.dataSet;
+		this.evaluator = solution.evaluator;
 		this.encoded = new int[solution.encoded.length];
 		for(int i = 0; i < solution.encoded.length; i++)
 		{
@@ -49,48 +56,6 @@ public class Solution
      * @return: fitness
      */
 	public double calcFitness() {
-        double score = 0;
-        for(Teacher teacher : dataSet.teachers) {
-            Set<Integer> timeSlotIds = new HashSet<>();
-            for(int i = 0; i < dataSet.classes.length; i++) {
-                if(dataSet.classes[i].getTeacherId() == teacher.getId()) {
-                    int roomId = encoded[i] / dataSet.timeSlots.length;
-                    int timeSlotId = encoded[i] % dataSet.timeSlots.length;
-                    if(dataSet.rooms[roomId].getCapacity() >= dataSet.classes[i].getNumberOfStudent()) {
-                        timeSlotIds.add(timeSlotId);
-                    }
-                }
-            }
-            score += timeSlotIds.size();
-        }
-        return score;
+        return evaluator.hardFitness(encoded);
     }	
-	
-	/**
-	 * Generating a new solution by mutating
-	 **/
-	public Solution getNewSolution()
-	{	    
-	    Solution newState = new Solution(this);
-        
-        int N = dataSet.timeSlots.length * dataSet.rooms.length;
-        
-        int i = (int)(rand.nextDouble() * newState.encoded.length);
-        int index = (int)(rand.nextDouble() * N); 
-        int j = -1;
-        
-        for(int k = 0; k < newState.encoded.length; k++) {
-            if(newState.encoded[k] == index) {
-                j = k;
-                break;
-            }
-        }
-        
-        int tmp = newState.encoded[i];
-        newState.encoded[i] = index;
-        if(j >= 0) newState.encoded[j] = tmp;
-                
-        return newState;
-	}
-	
 }
@@ -2,6 +2,7 @@ package app.timetable.sa;
 
 import java.io.IOException;
 import app.timetable.model.DataSet;
+import util.RandomStreams;
 
 /**
  * Solving time table with simulated annealing
@@ -9,6 +10,8 @@ import app.timetable.model.DataSet;
 public class TimeTableApp 
 {
     private static DataSet dataSet;
+    private static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    private static int runIndex = 0;
         
     /**
      * Running all benchmarks 
@@ -17,26 +20,46 @@ public class TimeTableApp
     public static void run(String dataSetName) throws IOException {
         dataSet =  new DataSet(dataSetName);
 
-        double temperature = 10.0;
-        double coolingRate = 0.00002;
-                
         for(int k = 0; k < 10; k++) {
-            SAOptimizer opt = new SAOptimizer(dataSet, temperature, coolingRate);
+            SAAttributes attributes = new SAAttributes();
+            attributes.temperature = 10.0;
+            attributes.coolingSchedule = new GeometricCooling(0.00002);
+            attributes.reheatStagnantIterations = 100000;
+            attributes.timeBudgetMillis = 10000;
+            
+            SAOptimizer opt = new SAOptimizer(dataSet, attributes, streams.forWorker(runIndex++));
             System.out.println("Run: " + (k+1));
             double result = opt.run();
             System.out.println("Final fitness:" + result);
         }
     }
    
+    /**
+     * Solve a dataset with replica exchange, one chain per available core
+     * @throws IOException 
+     */
+    public static void runReplicaExchange(String dataSetName) throws IOException {
+        dataSet =  new DataSet(dataSetName);
+        
+        int nReplica = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ReplicaExchangeOptimizer opt = new ReplicaExchangeOptimizer(dataSet, nReplica, 0.1, 1.0, 1000, streams.child(runIndex++));
+        double result = opt.run(500);
+        System.out.println("Replica exchange fitness:" + result + ", exchange rate:" + opt.getExchangeRate());
+    }
+    
     /**
      * Program entry point
      * @throws IOException 
      */
     
 	public static void main(String[] args) throws IOException {
+	    System.out.println("Seed: " + streams.getMasterSeed());
 	    
 	    run("timetable/hard/160_classes.json");
 	    run("timetable/hard/200_classes.json");
+	    
+	    runReplicaExchange("timetable/hard/160_classes.json");
+	    runReplicaExchange("timetable/hard/200_classes.json");
 		
 	}
 }
@@ -1,9 +1,13 @@
 package app.timetable.tabusearch;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import app.timetable.TimetableEvaluator;
+import app.timetable.TimetableState;
 import app.timetable.model.DataSet;
+import util.CancellationToken;
 
 public class TBSOptimizer {
 
@@ -11,6 +15,65 @@ public class TBSOptimizer {
     private int stoppingTurn;
     private Solution bestSolution;
     private double bestFitness;
+    private TimetableState state;
+    private int maxIndex;
+    private int nTimeSlot;
+    private Random rand;
+    
+    // largest number of (class, time slot) entries of a memory array
+    private static final long MAX_MEMORY_SIZE = Integer.MAX_VALUE - 8;
+    
+    // tabu memory: a class may not move back to a time slot before iteration tabuUntil[cls * nTimeSlot + slot],
+    // allocated by run() when the tenure is positive
+    private int tenure = 20;
+    private boolean aspiration = true;
+    private int[] tabuUntil;
+    private int iteration;
+    
+    // long-term memory: number of times a class was moved to a time slot, used to penalize frequent moves
+    private double diversificationWeight = 0;
+    private int[] frequency;
+    
+    // candidate moves of an iteration: class, new index and score
+    private int[] moveClass;
+    private int[] moveIndex;
+    private double[] moveScore;
+    
+    private ForkJoinPool evaluationPool;
+    private int parallelThreshold = 1024;
+    
+    // stopping conditions besides stagnation
+    private int maxIterations = 0;
+    private double targetFitness = Double.POSITIVE_INFINITY;
+    private CancellationToken cancellationToken;
+    
+    /**
+     * Score the candidate moves of a range and find the best one, splitting large ranges across the pool
+     */
+    private class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        final int from, to;
+        int best = -1;
+        
+        ScoreTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= parallelThreshold) {
+                best = scoreMoves(from, to);
+                return;
+            }
+            
+            int mid = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(from, mid), right = new ScoreTask(mid, to);
+            invokeAll(left, right);
+            best = better(left.best, right.best);
+        }
+    }
     
     /**
      * Constructor
@@ -19,11 +82,113 @@ public class TBSOptimizer {
      * @param coolingRate
      */
     public TBSOptimizer(boolean soft, DataSet dataSet, int neigbourSize, int stoppingTurn)
+    {
+        this(soft, dataSet, neigbourSize, stoppingTurn, new Random());
+    }
+    
+    /**
+     * Constructor
+     * @param dataSet
+     * @param neigbourSize
+     * @param stoppingTurn
+     * @param rand: random generator, seeded to make a run reproducible
+     */
+    public TBSOptimizer(boolean soft, DataSet dataSet, int neigbourSize, int stoppingTurn, Random rand)
     {
         this.neigbourSize = neigbourSize;
         this.stoppingTurn = stoppingTurn;        
-        this.bestSolution = new Solution(soft, dataSet);
-        this.bestFitness = this.bestSolution.calcFitness();
+        this.rand = rand;
+        this.bestSolution = new Solution(soft, dataSet, rand);
+        
+        TimetableEvaluator evaluator = TimetableEvaluator.of(dataSet);
+        this.state = new TimetableState(evaluator, bestSolution.encoded, soft);
+        this.maxIndex = evaluator.getMaxIndex();
+        this.nTimeSlot = evaluator.getTimeSlotCount();
+        this.bestFitness = state.getFitness();
+        
+        this.moveClass = new int[neigbourSize];
+        this.moveIndex = new int[neigbourSize];
+        this.moveScore = new double[neigbourSize];
+    }
+    
+    /**
+     * Set the pool used to score large neighbourhoods in parallel
+     * @param evaluationPool: pool for parallel scoring, null to score on the calling thread
+     */
+    public void setEvaluationPool(ForkJoinPool evaluationPool) {
+        this.evaluationPool = evaluationPool;
+    }
+    
+    /**
+     * Set the number of candidate moves scored by one task, neighbourhoods up to this size are scored on the calling thread
+     * @param parallelThreshold
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+    
+    /**
+     * Set the number of iterations during which a class may not move back to a time slot it left
+     * @param tenure: tabu tenure, 0 to disable the tabu memory
+     */
+    public void setTenure(int tenure) {
+        this.tenure = tenure;
+    }
+    
+    /**
+     * Set whether a tabu move is allowed when it leads to a new best solution
+     * @param aspiration
+     */
+    public void setAspiration(boolean aspiration) {
+        this.aspiration = aspiration;
+    }
+    
+    /**
+     * Set the weight of the long-term frequency penalty.
+     * A candidate move is ranked by its fitness change minus weight x the fraction of iterations in which the same class was moved to the same time slot
+     * @param diversificationWeight: weight of the penalty, 0 to disable diversification
+     */
+    public void setDiversificationWeight(double diversificationWeight) {
+        this.diversificationWeight = diversificationWeight;
+        if(diversificationWeight > 0 && frequency == null) {
+            frequency = newMemory();
+        }
+    }
+    
+    /**
+     * Allocate an array with an entry per (class, time slot)
+     * @throws IllegalStateException: if the dataset has too many classes and time slots for an array
+     */
+    private int[] newMemory() {
+        long size = (long) bestSolution.encoded.length * nTimeSlot;
+        if(size > MAX_MEMORY_SIZE) {
+            throw new IllegalStateException("Tabu memory of " + size + " (class, time slot) entries is too large");
+        }
+        return new int[(int) size];
+    }
+    
+    /**
+     * Set the number of iterations after which the run stops
+     * @param maxIterations: 0 for no limit
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+    
+    /**
+     * Set the fitness at which the run stops
+     * @param targetFitness
+     */
+    public void setTargetFitness(double targetFitness) {
+        this.targetFitness = targetFitness;
+    }
+    
+    /**
+     * Set the token polled after each iteration to stop the run early
+     * @param cancellationToken: null to never stop early
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
     }
     
     /**
@@ -33,39 +198,123 @@ public class TBSOptimizer {
         
         boolean stop = false;
         int bestKeepTurn = 0;
-        Solution bestCandidate = bestSolution;
+        int nClass = bestSolution.encoded.length;
+        if(tenure > 0 && tabuUntil == null) {
+            tabuUntil = newMemory();
+        }
         
         while(!stop) {
-            List<Solution> neighbours = new ArrayList<>();
+            // Sample the neighbourhood of the current candidate as moves and pick the best admissible one.
+            // The moves are drawn on this thread so that a run does not depend on the scoring threads
             for(int i = 0; i < neigbourSize; i++) {
-                neighbours.add(bestCandidate.getNewSolution());
+                moveClass[i] = (int)(rand.nextDouble() * nClass);
+                moveIndex[i] = (int)(rand.nextDouble() * maxIndex);
             }
             
-            bestCandidate = neighbours.get(0);
-            double bestCandidateFitness = bestCandidate.calcFitness();
-            
-            for(Solution candidate : neighbours) {
-                double candidateFitness = candidate.calcFitness();
-                if(candidateFitness > bestCandidateFitness) {
-                    bestCandidate = candidate;
-                    bestCandidateFitness = candidateFitness;
-                }
+            int best;
+            if(evaluationPool != null && neigbourSize > parallelThreshold) {
+                ScoreTask task = new ScoreTask(0, neigbourSize);
+                evaluationPool.invoke(task);
+                best = task.best;
+            }else {
+                best = scoreMoves(0, neigbourSize);
             }
             
+            if(best >= 0) applyMove(moveClass[best], moveIndex[best]);
+            iteration++;
+            double bestCandidateFitness = state.getFitness();
+            
             if(bestCandidateFitness > bestFitness) {
                 //System.out.println(String.format("Fitness improves from %f to %f", bestFitness, bestCandidateFitness));
-                bestSolution = bestCandidate;
+                state.copyAssignment(bestSolution.encoded);
                 bestFitness = bestCandidateFitness;
                 bestKeepTurn = 0;
             }
             
-            if(bestKeepTurn == stoppingTurn) {
+            if(bestKeepTurn == stoppingTurn || bestFitness >= targetFitness
+                    || (maxIterations > 0 && iteration >= maxIterations)
+                    || (cancellationToken != null && cancellationToken.isCancelled())) {
                 stop = true;
             }
             bestKeepTurn += 1;
         }
     }
     
+    /**
+     * Score candidate moves by their fitness change, penalized by their frequency.
+     * Only reads the state, so ranges may be scored concurrently
+     * @param from: first candidate
+     * @param to: end of the candidates
+     * @return: the first best admissible candidate, -1 if all of them are tabu
+     */
+    private int scoreMoves(int from, int to) {
+        double currentFitness = state.getFitness();
+        int best = -1;
+        
+        for(int i = from; i < to; i++) {
+            int cls = moveClass[i], index = moveIndex[i];
+            double delta = state.deltaMove(cls, index);
+            
+            if(isTabu(cls, index) && !(aspiration && currentFitness + delta > bestFitness)) {
+                moveScore[i] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            
+            double score = delta;
+            if(frequency != null) {
+                score -= diversificationWeight * frequency[cls * nTimeSlot + index % nTimeSlot] / (iteration + 1.0);
+            }
+            moveScore[i] = score;
+            if(best < 0 || score > moveScore[best]) best = i;
+        }
+        return best;
+    }
+    
+    /**
+     * Pick the better of two candidates, the first one on a tie so that the result does not depend on the split
+     */
+    private int better(int a, int b) {
+        if(a < 0) return b;
+        if(b < 0) return a;
+        return moveScore[b] > moveScore[a]? b : a;
+    }
+    
+    /**
+     * Check whether a move would bring back a recent time slot, for the moved class or the class it swaps with
+     * @param cls: moved class
+     * @param index: new index of the class
+     */
+    private boolean isTabu(int cls, int index) {
+        if(tabuUntil == null) return false;
+        if(tabuUntil[cls * nTimeSlot + index % nTimeSlot] > iteration) return true;
+        
+        int other = state.getOwner(index);
+        return other >= 0 && tabuUntil[other * nTimeSlot + state.getIndex(cls) % nTimeSlot] > iteration;
+    }
+    
+    /**
+     * Apply a move and make the time slots it leaves tabu
+     * @param cls: moved class
+     * @param index: new index of the class
+     */
+    private void applyMove(int cls, int index) {
+        int old = state.getIndex(cls);
+        int other = state.getOwner(index);
+        int oldSlot = old % nTimeSlot, slot = index % nTimeSlot;
+        
+        if(tabuUntil != null) {
+            tabuUntil[cls * nTimeSlot + oldSlot] = iteration + tenure;
+            if(other >= 0) tabuUntil[other * nTimeSlot + slot] = iteration + tenure;
+        }
+        
+        if(frequency != null) {
+            frequency[cls * nTimeSlot + slot]++;
+            if(other >= 0) frequency[other * nTimeSlot + oldSlot]++;
+        }
+        
+        state.applyMove(cls, index);
+    }
+    
     /**
      * Get the fitness of the best solution
      **/
@@ -79,4 +328,11 @@ public class TBSOptimizer {
     public Solution getBestSolution() {
         return bestSolution;
     }
+    
+    /**
+     * Get the number of iterations run
+     */
+    public int getIterations() {
+        return iteration;
+    }
 }
@@ -0,0 +1,57 @@
+package app.timetable.tabusearch;
+
+import app.timetable.SolverBudget;
+import app.timetable.SolverResult;
+import app.timetable.TimetableSolver;
+import app.timetable.model.DataSet;
+import util.CancellationToken;
+import util.RandomStreams;
+
+/**
+ * Tabu search as a TimetableSolver, an iteration is one tabu step
+ **/
+public class TabuSolver implements TimetableSolver {
+
+    private final boolean soft;
+    private final int neigbourSize;
+    private final int stoppingTurn;
+    
+    /**
+     * Constructor
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     * @param neigbourSize: number of candidate moves of a step
+     * @param stoppingTurn: number of steps without improvement after which the run stops
+     **/
+    public TabuSolver(boolean soft, int neigbourSize, int stoppingTurn) {
+        this.soft = soft;
+        this.neigbourSize = neigbourSize;
+        this.stoppingTurn = stoppingTurn;
+    }
+    
+    /**
+     * Constructor with the settings of TimeTableApp
+     * @param soft: true for soft constraint fitness, false for hard constraint fitness
+     **/
+    public TabuSolver(boolean soft) {
+        this(soft, TimeTableApp.neigbourSize, TimeTableApp.stoppingTurn);
+    }
+    
+    @Override
+    public String getName() {
+        return soft? "tabu-soft" : "tabu";
+    }
+    
+    @Override
+    public SolverResult solve(DataSet dataSet, long seed, SolverBudget budget, CancellationToken cancellationToken) {
+        long start = System.nanoTime();
+        
+        TBSOptimizer optimizer = new TBSOptimizer(soft, dataSet, neigbourSize, stoppingTurn, new RandomStreams(seed).forWorker(0));
+        optimizer.setMaxIterations((int) Math.min(budget.maxIterations, Integer.MAX_VALUE));
+        optimizer.setTargetFitness(budget.targetScore);
+        optimizer.setCancellationToken(budget.tokenFor(cancellationToken));
+        optimizer.run();
+        
+        return new SolverResult(getName(), optimizer.getBestSolution().encoded.clone(), optimizer.getBestFitness(),
+                                optimizer.getIterations(), (System.nanoTime() - start) / 1000000);
+    }
+}
@@ -1,12 +1,17 @@
 package app.timetable.tabusearch;
 
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
 import app.timetable.model.DataSet;
+import util.RandomStreams;
 
 
 public class TimeTableApp {
 
     private static DataSet dataSet;
+    private static RandomStreams streams = RandomStreams.fromSystemProperty("seed");
+    private static int runIndex = 0;
     
     static int neigbourSize = 100;
     static int stoppingTurn = 500;
@@ -19,7 +24,8 @@ public class TimeTableApp {
         dataSet =  new DataSet(dataSetName);
                 
         for(int k = 0; k < 10; k++) {
-            TBSOptimizer optimizer = new TBSOptimizer(soft, dataSet, neigbourSize, stoppingTurn);
+            TBSOptimizer optimizer = new TBSOptimizer(soft, dataSet, neigbourSize, stoppingTurn, streams.forWorker(runIndex++));
+            optimizer.setEvaluationPool(ForkJoinPool.commonPool());
             System.out.println("Run: " + (k+1));
             optimizer.run();
             if(soft) {
@@ -36,6 +42,7 @@ public class TimeTableApp {
      * @throws IOException 
      */
     public static void main(String[] args) throws IOException {        
+        System.out.println("Seed: " + streams.getMasterSeed());
        
         run("timetable/hard/160_classes.json", false);
         run("timetable/hard/200_classes.json", false);
@@ -0,0 +1,63 @@
+package util;
+
+/**
+ * Cooperative stop signal for long running searches.
+ * A search polls isCancelled() between steps and returns its best solution so far once it is set.
+ * A token is cancelled explicitly, when its deadline passes, or when its parent is cancelled,
+ * so a runner can stop all the searches it started with one call
+ */
+public class CancellationToken {
+
+    private final CancellationToken parent;
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor of a token without deadline
+     */
+    public CancellationToken() {
+        this(null, 0, false);
+    }
+
+    private CancellationToken(CancellationToken parent, long deadline, boolean hasDeadline) {
+        this.parent = parent;
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /**
+     * Create a token cancelled with this one
+     * @return: child token
+     */
+    public CancellationToken child() {
+        return new CancellationToken(this, 0, false);
+    }
+
+    /**
+     * Create a token cancelled with this one or when a time has elapsed
+     * @param timeoutMillis: time from now, 0 for no deadline
+     * @return: child token
+     */
+    public CancellationToken withTimeout(long timeoutMillis) {
+        if(timeoutMillis <= 0) return child();
+        return new CancellationToken(this, System.nanoTime() + timeoutMillis * 1000000L, true);
+    }
+
+    /**
+     * Cancel the token and its children
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the search should stop
+     * @return: true if cancelled, past the deadline, or the parent is cancelled
+     */
+    public boolean isCancelled() {
+        if(cancelled) return true;
+        if(hasDeadline && System.nanoTime() - deadline >= 0) return true;
+        return parent != null && parent.isCancelled();
+    }
+}
@@ -1,8 +1,7 @@
 package util;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
 *Util for generate combination
@@ -35,22 +34,70 @@ public class CombinationUtil {
 	* Generate combination of k element from 1..N, using provided random generator
 	*/	  
     public static int[] genCombination(int N, int k, Random rand) {
+        return genCombination(N, k, rand, new int[k]);
+    }
+    
+    /**
+	* Generate combination of k element from 1..N into an array, in O(k) with the sampler of the calling thread
+	*/	  
+    public static int[] genCombination(int N, int k, Random rand, int[] result) {
+        if(rand == null) rand = ThreadLocalRandom.current();
+        return samplers.get().sample(N, k, rand, result);
+    }
+    
+    private static final ThreadLocal<Sampler> samplers = ThreadLocal.withInitial(Sampler::new);
+    
+    /**
+     * Sampler of combinations by partial Fisher-Yates shuffle.
+     * Keeps an identity permutation between calls: a sample swaps k elements, then undoes the swaps,
+     * so each sample costs O(k) after the first one with the same N.
+     * A sampler must be used by one thread only
+     */
+    public static class Sampler {
         
-        List<Integer> indexes = new ArrayList<>();
-        for(int i = 0; i < N; i++) {
-            indexes.add(i);
-        }
-        
-        if(rand == null) rand = new Random();
-        
-        int[] result = new int[k];
+        private int[] pool = new int[0];
+        private int[] swaps = new int[0];
         
-        for(int i = 0; i < k; i++) {
-            int r = (int) (rand.nextDouble() * indexes.size());
-            result[i] = indexes.get(r);
-            indexes.remove(r);
+        /**
+         * Draw k distinct elements from 0..N-1 in random order
+         * @param N: number of elements to choose from
+         * @param k: number of elements to draw
+         * @param rand: random generator
+         * @param result: array receiving the elements, of at least k elements
+         * @return: result
+         */
+        public int[] sample(int N, int k, Random rand, int[] result) {
+            if(k < 0 || k > N) {
+                throw new IllegalArgumentException("Cannot draw " + k + " distinct elements from " + N);
+            }
+            // checked before any swap, a failure while the pool is shuffled would leave it biased for the later samples
+            if(result.length < k) {
+                throw new IllegalArgumentException("Result array of " + result.length + " elements cannot hold " + k + " elements");
+            }
+            // the pool is the identity permutation, so any prefix of it serves a smaller N
+            if(pool.length < N) {
+                pool = new int[N];
+                for(int i = 0; i < N; i++) pool[i] = i;
+            }
+            if(swaps.length < k) swaps = new int[k];
+            
+            for(int i = 0; i < k; i++) {
+                int r = i + (int) (rand.nextDouble() * (N - i));
+                int tmp = pool[r];
+                pool[r] = pool[i];
+                pool[i] = tmp;
+                result[i] = tmp;
+                swaps[i] = r;
+            }
+            
+            // restore the identity permutation, in reverse order of the swaps
+            for(int i = k - 1; i >= 0; i--) {
+                int r = swaps[i];
+                int tmp = pool[r];
+                pool[r] = pool[i];
+                pool[i] = tmp;
+            }
+            return result;
         }
-        
-        return result;
     }
 }
@@ -0,0 +1,80 @@
+package util;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Seedable source of independent random streams.
+ * Each worker gets its own stream derived from a master seed and its index, so a parallel run can be
+ * replayed exactly from the master seed without workers sharing a generator
+ */
+public class RandomStreams {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long masterSeed;
+
+    /**
+     * Constructor
+     * @param masterSeed: seed from which all streams are derived
+     */
+    public RandomStreams(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * Create streams seeded from a system property, or from the clock if the property is not set
+     * @param name: name of the property
+     * @return: random streams
+     */
+    public static RandomStreams fromSystemProperty(String name) {
+        return new RandomStreams(Long.getLong(name, System.nanoTime()));
+    }
+
+    /**
+     * getter
+     * @return masterSeed
+     */
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    /**
+     * Derive the seed of a worker
+     * @param index: index of the worker
+     * @return: seed
+     */
+    private long seedOf(int index) {
+        long z = masterSeed + (index + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Get the stream of a worker
+     * @param index: index of the worker
+     * @return: stream, always the same for a given master seed and index
+     */
+    public SplittableRandom splittable(int index) {
+        return new SplittableRandom(seedOf(index));
+    }
+
+    /**
+     * Get the stream of a worker as a java.util.Random
+     * @param index: index of the worker
+     * @return: random generator, to be used by one thread only
+     */
+    public Random forWorker(int index) {
+        return new SplittableRandomAdapter(splittable(index));
+    }
+
+    /**
+     * Get independent streams for a sub-task, such as one run among several
+     * @param index: index of the sub-task
+     * @return: random streams of the sub-task
+     */
+    public RandomStreams child(int index) {
+        return new RandomStreams(seedOf(index) ^ GOLDEN_GAMMA);
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Random generator backed by a SplittableRandom stream.
+ * Can be passed wherever a java.util.Random is expected, without the atomic seed update of Random,
+ * so it must not be shared between threads
+ */
+public class SplittableRandomAdapter extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private SplittableRandom source;
+
+    /**
+     * Constructor
+     * @param source: stream of random values
+     */
+    public SplittableRandomAdapter(SplittableRandom source) {
+        super(0L);
+        this.source = source;
+    }
+
+    /**
+     * Replace the source stream by a new stream of the given seed, as Random.setSeed restarts its sequence
+     * @param seed: seed of the new stream
+     */
+    @Override
+    public void setSeed(long seed) {
+        // also called by the Random constructor, before the source is set
+        super.setSeed(seed);
+        if(source != null) {
+            source = new SplittableRandom(seed);
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (source.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return source.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return source.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return source.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return source.nextBoolean();
+    }
+}